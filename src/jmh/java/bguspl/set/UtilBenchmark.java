@@ -0,0 +1,96 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks the set engine in UtilImpl for different decks and numbers of cards searched.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    /**
+     * The deck as featureSize x featureCount.
+     */
+    @Param({"3x4", "3x5", "3x6", "4x4", "4x5"})
+    public String deck;
+
+    /**
+     * The number of cards to search for sets (0 for the whole deck).
+     */
+    @Param({"12", "81", "0"})
+    public int cards;
+
+    private Util util;
+    private List<Integer> cardList;
+    private int[] cardArray;
+    private int[] set;
+
+    @Setup
+    public void setup() {
+        String[] sizes = deck.split("x");
+        Properties properties = new Properties();
+        properties.setProperty("FeatureSize", sizes[0]);
+        properties.setProperty("FeatureCount", sizes[1]);
+        properties.setProperty("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+
+        Random random = new Random(0);
+        cardList = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(cardList, random);
+        if (cards > 0) cardList = cardList.subList(0, Math.min(cards, config.deckSize));
+        cardArray = cardList.stream().mapToInt(Integer::intValue).toArray();
+
+        List<int[]> sets = util.findSets(cardList, 1);
+        set = sets.isEmpty() ? util.findSets(IntStream.range(0, config.deckSize).toArray(), config.deckSize, 1).get(0) : sets.get(0);
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(set);
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(set);
+    }
+
+    @Benchmark
+    public List<int[]> findFirstSet() {
+        return util.findSets(cardList, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSets() {
+        return util.findSets(cardList, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int countSets() {
+        return util.countSets(cardArray, cardArray.length);
+    }
+}
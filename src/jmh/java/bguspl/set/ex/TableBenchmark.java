@@ -0,0 +1,101 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks the token operations of the table for different table sizes and numbers of players.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    /**
+     * The table grid as rows x columns.
+     */
+    @Param({"3x4", "9x9", "15x15"})
+    public String grid;
+
+    @Param({"4", "100"})
+    public int players;
+
+    private Table table;
+    private int tableSize;
+    private int slot;
+
+    /**
+     * The player whose tokens are counted and read (the last one, so its tokens are at the end of the bitsets).
+     */
+    private int measured;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = grid.split("x");
+        Properties properties = new Properties();
+        properties.setProperty("Rows", dimensions[0]);
+        properties.setProperty("Columns", dimensions[1]);
+        // a deck with enough cards to fill the table
+        int featureCount = 4;
+        while (Math.pow(3, featureCount) < Integer.parseInt(dimensions[0]) * Integer.parseInt(dimensions[1]))
+            featureCount++;
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(players));
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("LogLevel", "OFF");
+        Logger logger = Logger.getAnonymousLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        // no user interface work, so only the table is measured
+        table = new Table(new Env(logger, config, new UserInterfaceHeadless(), util));
+        tableSize = config.tableSize;
+
+        for (int slot = 0; slot < tableSize; slot++)
+            table.placeCard(slot, slot);
+
+        // a full hand of tokens spread over the table (on larger tables, over more than one word of the bitset)
+        measured = players - 1;
+        table.placeToken(measured, 0);
+        table.placeToken(measured, tableSize / 2);
+        table.placeToken(measured, tableSize - 1);
+    }
+
+    @Benchmark
+    public boolean placeAndRemoveToken() {
+        slot = (slot + 1) % tableSize;
+        table.placeToken(0, slot);
+        return table.removeToken(0, slot);
+    }
+
+    @Benchmark
+    public int countTokens() {
+        return table.countTokens(measured);
+    }
+
+    @Benchmark
+    public int[] getPlayerTokensCards() {
+        return table.getPlayerTokensCards(measured);
+    }
+}
@@ -7,6 +7,7 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,16 +47,89 @@ public class Config {
      */
     public final int computerPlayers;
 
+    /**
+     * The number of cards from which searching for sets is split between the threads of a fork/join pool
+     */
+    public final int parallelSearchThreshold;
+
     /**
      * The total number of players (human + computer) in the game
      */
     public final int players;
 
     /**
-     * Whether to print out hints to the console or not
+     * Whether to log the legal sets on the table (at INFO level, after every deal) or not
      */
     public final boolean hints;
 
+    /**
+     * How the dealer makes sure there is a set on the table when a deal has none: "random" (deal everything again until
+     * there is one), "guaranteed" (deal everything again, with a set planted in the deal) or "adaptive" (replace a single
+     * card so that it completes a set, and plant a set only when no such card is left in the deck)
+     */
+    public final String dealingPolicy;
+
+    /**
+     * The number of games to simulate at once with no user interface, as fast as possible (0 to play a normal game)
+     */
+    public final int simulationGames;
+
+    /**
+     * The number of times faster than real time the game clock runs in simulated games
+     */
+    public final double simulationSpeed;
+
+    /**
+     * How simulated games run: "threads" (all at once, with the threads of a normal game, on a fast game clock) or
+     * "events" (one after the other, each on the calling thread as a discrete-event simulation)
+     */
+    public final String simulationEngine;
+
+    /**
+     * The threads the players run on: "platform" (a thread of the operating system each) or "virtual" (virtual threads,
+     * many of which share a few platform threads - Java 21 or later only)
+     */
+    public final String playerThreads;
+
+    /**
+     * The number of key presses per second of each computer player, by player id (0 for human players, and for
+     * computer players that never press a key)
+     */
+    public final double[] botActionsPerSecond;
+
+    /**
+     * How each computer player chooses its key presses, by player id (null for human players): "random" (random slots),
+     * "perfect" (the slots of a set, as soon as there is one) or "human" (the slots of a set, after a reaction time and
+     * with some errors)
+     */
+    public final String[] botStrategies;
+
+    /**
+     * The mean number of milliseconds it takes a human-like computer player to see a set
+     */
+    public final long botReactionMillis;
+
+    /**
+     * The probability that a human-like computer player goes for 3 cards that are not a set
+     */
+    public final double botErrorRate;
+
+    /**
+     * The seed every source of randomness in the game is derived from (a random one if none is set, so that any game
+     * can be played again by setting the seed it reports)
+     */
+    public final long seed;
+
+    /**
+     * The file to record the game in, for replaying it exactly (empty to not record)
+     */
+    public final String recordFile;
+
+    /**
+     * The recorded game to replay instead of playing a game (empty to play one)
+     */
+    public final String replayFile;
+
     /**
      * The number of milliseconds until the dealer reshuffles the deck (0 show timer since last action, -1 show nothing)
      */
@@ -77,7 +151,7 @@ public class Config {
     public final long pointFreezeMillis;
 
     /**
-     * The number of milliseconds to delay before removing/placing a card on the table
+     * The number of milliseconds the user interface waits between showing cards removed/placed on the table
      */
     public final long tableDelayMillis;
 
@@ -132,6 +206,11 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * The number of times per second the countdown and freeze timers on the screen are refreshed
+     */
+    public final int displayFrameRate;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -197,6 +276,9 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        if (featureSize < 3)
+            logger.severe("invalid feature size: " + featureSize + " (sets are only well defined for 3 or more)");
+        parallelSearchThreshold = Integer.parseInt(properties.getProperty("ParallelSearchThreshold", "243"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -204,6 +286,31 @@ public class Config {
         players = humanPlayers + computerPlayers;
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
+        simulationGames = Integer.parseInt(properties.getProperty("SimulationGames", "0"));
+        simulationSpeed = Double.parseDouble(properties.getProperty("SimulationSpeed", "100"));
+        String engine = properties.getProperty("SimulationEngine", "threads").trim().toLowerCase();
+        if (!engine.equals("threads") && !engine.equals("events")) {
+            logger.severe("warning: unknown simulation engine: " + engine + " (using threads)");
+            engine = "threads";
+        }
+        simulationEngine = engine;
+        String threads = properties.getProperty("PlayerThreads", "platform").trim().toLowerCase();
+        if (!threads.equals("platform") && !threads.equals("virtual")) {
+            logger.severe("warning: unknown player threads: " + threads + " (using platform)");
+            threads = "platform";
+        }
+        playerThreads = threads;
+        String seedString = properties.getProperty("Seed", "").trim();
+        seed = seedString.isEmpty() ? new Random().nextLong() : Long.parseLong(seedString);
+        logger.info("game seed: " + seed);
+        recordFile = properties.getProperty("RecordFile", "").trim();
+        replayFile = properties.getProperty("ReplayFile", "").trim();
+        String policy = properties.getProperty("DealingPolicy", "adaptive").trim().toLowerCase();
+        if (!Arrays.asList("random", "guaranteed", "adaptive").contains(policy)) {
+            logger.severe("warning: unknown dealing policy: " + policy + " (using adaptive)");
+            policy = "adaptive";
+        }
+        dealingPolicy = policy;
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
@@ -211,6 +318,24 @@ public class Config {
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
+        // computer players with no rate of their own press keys at the last rate given
+        String[] rates = properties.getProperty("BotActionsPerSecond", "100").split(",");
+        botActionsPerSecond = new double[players];
+        for (int i = humanPlayers; i < players; i++)
+            botActionsPerSecond[i] = Double.parseDouble(rates[Math.min(i - humanPlayers, rates.length - 1)].trim());
+        String[] strategies = properties.getProperty("BotStrategies", "random").split(",");
+        botStrategies = new String[players];
+        for (int i = humanPlayers; i < players; i++) {
+            String strategy = strategies[Math.min(i - humanPlayers, strategies.length - 1)].trim().toLowerCase();
+            if (!Arrays.asList("random", "perfect", "human").contains(strategy)) {
+                logger.severe("warning: unknown bot strategy: " + strategy + " (using random)");
+                strategy = "random";
+            }
+            botStrategies[i] = strategy;
+        }
+        botReactionMillis = (long) (Double.parseDouble(properties.getProperty("BotReactionSeconds", "1")) * 1000.0);
+        botErrorRate = Double.parseDouble(properties.getProperty("BotErrorRate", "0.1"));
+
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
         playerNames = new String[players];
@@ -224,6 +349,7 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        displayFrameRate = Math.max(1, Integer.parseInt(properties.getProperty("DisplayFrameRate", "30")));
 
         // keyboard input data
         playerKeys = new int[players][rows * columns];
@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.Random;
 import java.util.logging.Logger;
 
 public class Env {
@@ -8,11 +9,42 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final GameClock clock;
+
+    /**
+     * The seed of the game, that all its sources of randomness are derived from (see random).
+     */
+    public final long seed;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, GameClock.SYSTEM);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, GameClock clock) {
+        this(logger, config, ui, util, clock, config.seed);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, GameClock clock, long seed) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = clock;
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a source of randomness of the game. Each stream is seeded from the game seed and the stream number (mixed
+     * so that nearby streams are not alike), so a game with the same seed gets the same numbers from every stream.
+     *
+     * @param stream - the stream number: 0 for the dealer, 1 + id for the AI of a player.
+     * @return - a new random number generator for the stream.
+     */
+    public Random random(int stream) {
+        // the SplitMix64 finalizer
+        long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
     }
-}
\ No newline at end of file
+}
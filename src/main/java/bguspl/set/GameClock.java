@@ -0,0 +1,42 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The source of time for the game: deadlines (turn timeouts, freezes) are measured against it, and the threads that
+ * wait for them wait through it.
+ */
+public interface GameClock {
+
+    /**
+     * The wall clock (game time is real time).
+     */
+    GameClock SYSTEM = new GameClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void parkUntil(Object blocker, long deadline) {
+            long remaining = deadline - currentTimeMillis();
+            if (remaining > 0)
+                LockSupport.parkNanos(blocker, TimeUnit.MILLISECONDS.toNanos(remaining));
+        }
+    };
+
+    /**
+     * @return - the current game time, in milliseconds.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Parks the current thread until the game time reaches a deadline, the thread is unparked or interrupted, or for
+     * no reason at all (like LockSupport.park, callers should check their condition again when it returns).
+     *
+     * @param blocker  - the object the thread is parked on (for thread dumps).
+     * @param deadline - the game time to wake up at, in milliseconds.
+     */
+    void parkUntil(Object blocker, long deadline);
+}
@@ -0,0 +1,164 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.GameLog;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * A single game: its table, dealer and players, and the lifecycle of the dealer thread that runs it.
+ * Games are independent of each other, so any number of them may run in the same process.
+ */
+public class GameSession {
+
+    /**
+     * The id of the game (unique within its session manager).
+     */
+    public final int id;
+
+    /**
+     * The game environment object.
+     */
+    public final Env env;
+
+    /**
+     * Game entities.
+     */
+    private final Table table;
+    private final Dealer dealer;
+    private final Player[] players;
+
+    /**
+     * The log the game is recorded in (null if config.recordFile is not set).
+     */
+    private final GameLog log;
+
+    /**
+     * The thread running the dealer (and through it, the whole game).
+     */
+    private final ThreadLogger dealerThread;
+
+    /**
+     * True iff the game was closed before it ended (e.g. by the X button of its window).
+     */
+    private volatile boolean closed;
+
+    /**
+     * @param id      - the id of the game.
+     * @param env     - the game environment object.
+     * @param players - an array of config.players entries to create the players in (the user interface may already
+     *                  hold it, to pass its input on to them).
+     */
+    public GameSession(int id, Env env, Player[] players) {
+        this.id = id;
+        this.env = env;
+        this.players = players;
+        table = new Table(env);
+        log = env.config.recordFile.isEmpty() ? null : new GameLog(env.seed, env.clock);
+        dealer = log == null ? new Dealer(env, table, players) : new Dealer(env, table, players, log);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        dealerThread = new ThreadLogger(() -> {
+            dealer.run();
+            if (log != null) writeLog();
+        }, "dealer #" + id, env.logger);
+    }
+
+    /**
+     * Writes the recorded game to config.recordFile (followed by ".id" for all games but the first).
+     */
+    private void writeLog() {
+        String file = env.config.recordFile + (id == 0 ? "" : "." + id);
+        try {
+            log.write(Paths.get(file), players);
+            env.logger.severe("game " + id + " recorded in " + file);
+        } catch (IOException e) {
+            env.logger.severe("error recording game " + id + " in " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts the game.
+     */
+    public void start() {
+        dealerThread.startWithLog();
+    }
+
+    /**
+     * Ends the game before its end conditions are met.
+     */
+    public void close() {
+        env.logger.severe("game " + id + " closed");
+        closed = true;
+        dealer.terminate();
+    }
+
+    /**
+     * Waits until the game ends.
+     */
+    public void awaitTermination() throws InterruptedException {
+        dealerThread.joinWithLog();
+    }
+
+    /**
+     * @return - true iff the game ended (or was closed and has stopped).
+     */
+    public boolean isFinished() {
+        return !dealerThread.isAlive() && dealerThread.getState() != Thread.State.NEW;
+    }
+
+    /**
+     * @return - true iff the game was closed before it ended.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return - the number of sets collected in the game so far.
+     */
+    public int setsCollected() {
+        int sets = 0;
+        for (Player player : players)
+            sets += player.score();
+        return sets;
+    }
+
+    /**
+     * @return - the number of set claims checked in the game so far.
+     */
+    public long claimCount() {
+        return dealer.claimCount();
+    }
+
+    /**
+     * @return - the number of set claims checked in the game so far that were legal sets.
+     */
+    public long validClaimCount() {
+        return dealer.validClaimCount();
+    }
+
+    /**
+     * @return - the number of set claims in the game so far that were dropped without a verdict.
+     */
+    public long droppedClaimCount() {
+        return dealer.droppedClaimCount();
+    }
+
+    /**
+     * @return - the total time (in real nanoseconds) the players of the game waited for their claims to be checked.
+     */
+    public long claimLatencyNanos() {
+        return dealer.claimLatencyNanos();
+    }
+
+    /**
+     * @return - the players of the game.
+     */
+    public Player[] players() {
+        return players;
+    }
+}
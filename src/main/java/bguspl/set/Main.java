@@ -1,8 +1,6 @@
 package bguspl.set;
 
-import bguspl.set.ex.Dealer;
 import bguspl.set.ex.Player;
-import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
@@ -17,19 +15,6 @@ import java.util.logging.*;
  */
 public class Main {
 
-    private static Dealer dealer;
-    private static Thread mainThread;
-
-    private static boolean xButtonPressed = false;
-    private static Logger logger;
-
-    public static void xButtonPressed() throws InterruptedException {
-        if (logger != null) logger.severe("exit button pressed");
-        xButtonPressed = true;
-        if (dealer != null) dealer.terminate();
-        mainThread.join();
-    }
-
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
@@ -37,18 +22,39 @@ public class Main {
      */
     public static void main(String[] args) {
 
-        mainThread = Thread.currentThread();
+        Thread mainThread = Thread.currentThread();
 
         // create the game environment objects
-        logger = initLogger();
+        Logger logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+
+        // a simulation runs its games (or replays a recorded one) headless and reports on them instead of playing one
+        if (!config.replayFile.isEmpty() || config.simulationGames > 0) {
+            try {
+                if (!config.replayFile.isEmpty())
+                    new Simulation(logger, config).replay();
+                else
+                    new Simulation(logger, config).run();
+            } catch (IOException | IllegalArgumentException e) {
+                String mode = config.replayFile.isEmpty() ? "running the simulation" : "replaying " + config.replayFile;
+                logger.severe("error " + mode + ": " + e.getMessage());
+            } catch (InterruptedException ignored) {
+            } finally {
+                ThreadLogger.logStop(logger, Thread.currentThread().getName());
+                for (Handler h : logger.getHandlers()) h.flush();
+            }
+            return;
+        }
+
+        SessionManager manager = new SessionManager(logger, config);
+        Util util = manager.util;
 
         Player[] players = new Player[config.players];
+        UserInterfaceSwing swing = null;
         UserInterface ui = null;
         try {
-            ui = new UserInterfaceSwing(logger, config, players);
+            ui = swing = new UserInterfaceSwing(logger, config, players);
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
@@ -57,28 +63,23 @@ public class Main {
         }
         ui = new UserInterfaceDecorator(logger, util, ui);
 
-        Env env = new Env(logger, config, ui, util);
-
-        // create the game entities
-        Table table = new Table(env);
-        dealer = new Dealer(env, table, players);
-        for (int i = 0; i < players.length; i++)
-            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        // create the game entities, and close the game when its window is closed
+        GameSession session = manager.newGame(ui, players);
+        if (swing != null) swing.addWindowListener(new WindowManager(session, mainThread));
 
         // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        session.start();
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
-            if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
+            session.awaitTermination();
+            if (!session.isClosed() && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
-            if (!xButtonPressed) env.ui.dispose();
+            if (!session.isClosed()) session.env.ui.dispose();
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
@@ -0,0 +1,41 @@
+package bguspl.set;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A game clock that runs a fixed number of times faster than the wall clock (e.g. at speed 100, a 60 seconds turn
+ * timeout runs out in 0.6 seconds and a 10 milliseconds wait takes 0.1 milliseconds).
+ */
+public class ScaledClock implements GameClock {
+
+    /**
+     * The number of game milliseconds that pass in a real millisecond.
+     */
+    private final double speed;
+
+    /**
+     * The game time and the real time (System.nanoTime) at which the clock started.
+     */
+    private final long startMillis;
+    private final long startNanos;
+
+    public ScaledClock(double speed) {
+        if (speed <= 0)
+            throw new IllegalArgumentException("clock speed must be positive: " + speed);
+        this.speed = speed;
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return startMillis + (long) ((System.nanoTime() - startNanos) * speed / 1_000_000.0);
+    }
+
+    @Override
+    public void parkUntil(Object blocker, long deadline) {
+        long remaining = deadline - currentTimeMillis();
+        if (remaining > 0)
+            LockSupport.parkNanos(blocker, (long) Math.ceil(remaining * 1_000_000.0 / speed));
+    }
+}
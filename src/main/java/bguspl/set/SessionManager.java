@@ -0,0 +1,129 @@
+package bguspl.set;
+
+import bguspl.set.ex.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * This class hosts many independent games in one process. The games share the configuration and the card data
+ * (the Util object, whose feature tables never change, and the pool its parallel searches run on), while each one
+ * has its own table, dealer, players and lifecycle.
+ */
+public class SessionManager {
+
+    /**
+     * The logger shared by all the games.
+     */
+    public final Logger logger;
+
+    /**
+     * The configuration shared by all the games.
+     */
+    public final Config config;
+
+    /**
+     * The card data and set logic shared by all the games.
+     */
+    public final Util util;
+
+    /**
+     * The clock shared by all the games.
+     */
+    public final GameClock clock;
+
+    /**
+     * The games hosted, in the order they were created (finished ones are kept until pruned).
+     */
+    private final List<GameSession> sessions = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public SessionManager(Logger logger, Config config) {
+        this(logger, config, new UtilImpl(config));
+    }
+
+    public SessionManager(Logger logger, Config config, Util util) {
+        this(logger, config, util, GameClock.SYSTEM);
+    }
+
+    public SessionManager(Logger logger, Config config, Util util, GameClock clock) {
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a game (without starting it).
+     *
+     * @param ui      - the user interface of the game.
+     * @param players - an array of config.players entries to create the players in (see GameSession).
+     * @return - the game created.
+     */
+    public GameSession newGame(UserInterface ui, Player[] players) {
+        // every game gets a seed of its own, derived from the configured one (the first game gets that seed itself)
+        int id = nextId.getAndIncrement();
+        GameSession session = new GameSession(id, new Env(logger, config, ui, util, clock, config.seed + id), players);
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * Creates and starts a game with no user interface (its events are neither shown nor logged, so any number of
+     * games can run at once).
+     *
+     * @return - the game started.
+     */
+    public GameSession startGame() {
+        GameSession session = newGame(new UserInterfaceHeadless(), new Player[config.players]);
+        session.start();
+        return session;
+    }
+
+    /**
+     * Creates and starts count games with no user interface.
+     *
+     * @return - the games started.
+     */
+    public List<GameSession> startGames(int count) {
+        List<GameSession> started = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            started.add(startGame());
+        return started;
+    }
+
+    /**
+     * @return - the games hosted (including finished ones that were not pruned yet).
+     */
+    public List<GameSession> sessions() {
+        return new ArrayList<>(sessions);
+    }
+
+    /**
+     * Forgets the games that finished.
+     */
+    public void pruneFinished() {
+        sessions.removeIf(GameSession::isFinished);
+    }
+
+    /**
+     * Waits until all the games hosted end.
+     */
+    public void awaitAll() throws InterruptedException {
+        for (GameSession session : sessions)
+            session.awaitTermination();
+    }
+
+    /**
+     * Closes all the games hosted that did not end yet.
+     */
+    public void closeAll() {
+        for (GameSession session : sessions)
+            if (!session.isFinished())
+                session.close();
+    }
+}
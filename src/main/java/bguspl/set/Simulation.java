@@ -0,0 +1,119 @@
+package bguspl.set;
+
+import bguspl.set.ex.EventSimulation;
+import bguspl.set.ex.GameReplay;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * Runs games with no user interface as fast as possible and reports the throughput. With the "threads" engine, the
+ * games run at once on a game clock that runs config.simulationSpeed times faster than real time (so freezes and turn
+ * timeouts still hold, only shorter); their user interface events are still logged, so set LogLevel to OFF to measure
+ * the games alone. With the "events" engine, the games run one after the other on this thread, in virtual time.
+ */
+public class Simulation {
+
+    private final Logger logger;
+    private final Config config;
+
+    public Simulation(Logger logger, Config config) {
+        this.logger = logger;
+        this.config = config;
+    }
+
+    /**
+     * Runs config.simulationGames games with the configured engine and reports the results.
+     */
+    public void run() throws InterruptedException {
+        if (config.simulationEngine.equals("events"))
+            runEvents();
+        else
+            runThreads();
+    }
+
+    /**
+     * Runs config.simulationGames games at once, waits for all of them to end and reports the results.
+     */
+    private void runThreads() throws InterruptedException {
+        SessionManager manager = new SessionManager(logger, config, new UtilImpl(config),
+                new ScaledClock(config.simulationSpeed));
+
+        long start = System.nanoTime();
+        List<GameSession> games = manager.startGames(config.simulationGames);
+        manager.awaitAll();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        long sets = 0, claims = 0, validClaims = 0, droppedClaims = 0, latencyNanos = 0;
+        for (GameSession game : games) {
+            sets += game.setsCollected();
+            claims += game.claimCount();
+            validClaims += game.validClaimCount();
+            droppedClaims += game.droppedClaimCount();
+            latencyNanos += game.claimLatencyNanos();
+        }
+
+        String report = format("simulated %d games in %.2f seconds (game clock x%.0f): %.2f games/s, %.1f sets/s, "
+                        + "%d claims checked (%.1f%% valid, %d more dropped) with %.1f us average latency",
+                games.size(), seconds, config.simulationSpeed, games.size() / seconds, sets / seconds,
+                claims, percent(validClaims, claims), droppedClaims, claims == 0 ? 0.0 : latencyNanos / 1000.0 / claims);
+        report(report);
+    }
+
+    /**
+     * Runs config.simulationGames games one after the other as discrete-event simulations and reports the results.
+     */
+    private void runEvents() {
+        Util util = new UtilImpl(config);
+
+        long start = System.nanoTime();
+        long sets = 0, events = 0, gameMillis = 0, claims = 0, validClaims = 0, droppedClaims = 0;
+        for (int i = 0; i < config.simulationGames; i++) {
+            // each game gets the seed the session manager gives the game with the same id in the threads engine
+            EventSimulation game = new EventSimulation(logger, config, util, config.seed + i);
+            game.run();
+            sets += game.setsCollected();
+            events += game.eventsRun();
+            gameMillis += game.gameTimeMillis();
+            claims += game.claimCount();
+            validClaims += game.validClaimCount();
+            droppedClaims += game.droppedClaimCount();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        report(format("simulated %d games in %.2f seconds (discrete events): %.2f games/s, %.1f sets/s, "
+                        + "%.0f events/s, %.1f game seconds per game, %d claims checked (%.1f%% valid, %d more dropped)",
+                config.simulationGames, seconds, config.simulationGames / seconds, sets / seconds, events / seconds,
+                gameMillis / 1000.0 / Math.max(1, config.simulationGames), claims, percent(validClaims, claims),
+                droppedClaims));
+    }
+
+    /**
+     * Replays the game recorded in config.replayFile and reports how long it took, and whether it ended the same way.
+     */
+    public void replay() throws IOException {
+        GameReplay replay = new GameReplay(logger, config, new UtilImpl(config), Paths.get(config.replayFile));
+
+        long start = System.nanoTime();
+        replay.run();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        report(format("replayed %d actions of %s in %.3f seconds: scores %s (%s the recorded game)",
+                replay.actionCount(), config.replayFile, seconds, replay.scores(),
+                replay.scores().equals(replay.recordedScores()) ? "same as" : "differ from"));
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0.0 : 100.0 * part / whole;
+    }
+
+    private void report(String report) {
+        logger.severe(report);
+        System.out.println(report);
+    }
+}
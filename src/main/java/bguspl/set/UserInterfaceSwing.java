@@ -4,10 +4,14 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.FileNotFoundException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -22,6 +26,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private final GamePanel gamePanel;
     private final PlayersPanel playersPanel;
     private final WinnerPanel winnerPanel;
+    private final CardAnimation cardAnimation;
     private final Config config;
 
     static String intInBaseToPaddedString(int n, int padding, int base) {
@@ -35,6 +40,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         gamePanel = new GamePanel();
         playersPanel = new PlayersPanel();
         winnerPanel = new WinnerPanel();
+        cardAnimation = new CardAnimation();
 
         setLayout(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
@@ -64,11 +70,84 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         addKeyListener(new InputManager(logger, config, players));
-        addWindowListener(new WindowManager());
 
         EventQueue.invokeLater(() -> setVisible(true));
     }
 
+    /**
+     * Shows the cards placed on and removed from the table one by one, config.tableDelayMillis apart, so the game
+     * itself never waits for the display. Token changes go through the same queue, so they are shown in the order
+     * they happened on the table, but without a delay of their own: each is shown right after the card change before it.
+     */
+    private class CardAnimation implements ActionListener {
+
+        private final Queue<Runnable> changes = new ConcurrentLinkedQueue<>();
+        private final Timer timer;
+
+        private CardAnimation() {
+            timer = new Timer((int) config.tableDelayMillis, this);
+        }
+
+        /**
+         * Adds a card change, shown config.tableDelayMillis after the card change before it.
+         */
+        private void add(Runnable change) {
+            if (config.tableDelayMillis <= 0) {
+                change.run();
+                return;
+            }
+            changes.add(change);
+            timer.start();
+        }
+
+        /**
+         * Adds a token change, shown with the card change before it (right away if no card change is waiting).
+         */
+        private void addToken(Runnable change) {
+            if (config.tableDelayMillis <= 0 || changes.isEmpty()) {
+                change.run();
+                return;
+            }
+            changes.add(new TokenChange(change));
+            timer.start();
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            // show the next card change, and the token changes up to the card change after it
+            boolean shown = false;
+            Runnable change;
+            while ((change = changes.peek()) != null && (!shown || change instanceof TokenChange)) {
+                changes.poll();
+                change.run();
+                shown = true;
+            }
+            if (shown)
+                return;
+            timer.stop();
+            // a change may have been added after the poll and before the timer stopped
+            if (!changes.isEmpty())
+                timer.start();
+        }
+    }
+
+    /**
+     * A token change waiting in the card animation queue.
+     */
+    private static class TokenChange implements Runnable {
+
+        private final Runnable change;
+
+        private TokenChange(Runnable change) {
+            this.change = change;
+        }
+
+        @Override
+        public void run() {
+            change.run();
+        }
+    }
+
     private class TimerPanel extends JPanel {
 
         private final JLabel timerField;
@@ -104,37 +183,59 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         private final Image emptyCard;
         private final Image[] deck;
-        private final Image[][] grid;
+        private final String[] cardNames;
+        private final int[][] grid;
         private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
 
+        /**
+         * The size (in pixels) of each cell on the screen (smaller than configured if the grid does not fit).
+         */
+        private final int cellWidth;
+        private final int cellHeight;
+
         private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
+            Image image = findImageResource(filename);
+            if (image == null)
                 throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
+            return image;
+        }
+
+        private Image findImageResource(String filename) {
+            URL imageResource = getClass().getClassLoader().getResource(filename);
+            return imageResource == null ? null : new ImageIcon(imageResource).getImage();
         }
 
         private GamePanel() {
 
-            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+            // shrink the cells of large grids so the whole table fits on the screen
+            Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+            double scale = Math.min(1.0, Math.min(
+                    0.9 * screen.width / (config.columns * config.cellWidth),
+                    0.6 * screen.height / (config.rows * config.cellHeight)));
+            cellWidth = (int) (config.cellWidth * scale);
+            cellHeight = (int) (config.cellHeight * scale);
+            setPreferredSize(new Dimension(config.columns * cellWidth, config.rows * cellHeight));
 
             // init deck and load all pictures from png files
             assert config.featureSize < 10; // otherwise there will be naming conflicts
 
-            // load the image resources
+            // load the image resources (cards of decks without pictures are drawn as their features on an empty card)
             deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
+            cardNames = new String[config.deckSize];
+            for (int i = 0; i < config.deckSize; ++i) {
+                cardNames[i] = intInBaseToPaddedString(i, config.featureCount, config.featureSize);
+                deck[i] = findImageResource("cards/" + cardNames[i] + ".png");
+            }
             emptyCard = loadImageResource("cards/empty_card.png");
 
-            grid = new Image[config.rows][config.columns];
+            grid = new int[config.rows][config.columns];
             tokenText = new JLabel[config.rows][config.columns];
             playerTokens = new boolean[config.players][config.rows][config.columns];
             for (int row = 0; row < config.rows; row++) {
                 for (int column = 0; column < config.columns; column++) {
                     // init the cards on the table grid as empty cards
-                    grid[row][column] = emptyCard;
+                    grid[row][column] = -1;
 
                     // init the JLabel selection overlay
                     tokenText[row][column] = new JLabel("");
@@ -142,7 +243,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
                     tokenText[row][column].setHorizontalAlignment(JLabel.CENTER);
                     tokenText[row][column].setOpaque(false);
                     tokenText[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                    tokenText[row][column].setBounds((column * config.cellWidth), (row * config.cellHeight), config.cellWidth, config.cellHeight);
+                    tokenText[row][column].setBounds((column * cellWidth), (row * cellHeight), cellWidth, cellHeight);
                     add(tokenText[row][column]);
                 }
             }
@@ -151,7 +252,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private void placeCard(int slot, int card) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = deck[card];
+            grid[row][column] = card;
             validate();
             repaint();
         }
@@ -159,7 +260,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private void removeCard(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = emptyCard;
+            grid[row][column] = -1;
             validate();
             repaint();
         }
@@ -207,8 +308,13 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         public void paintComponent(Graphics g) {
             // draw card images
             for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+                for (int column = 0; column < config.columns; column++) {
+                    int card = grid[row][column];
+                    Image image = card == -1 || deck[card] == null ? emptyCard : deck[card];
+                    g.drawImage(image, (column * cellWidth), (row * cellHeight), cellWidth, cellHeight, this);
+                    if (card != -1 && deck[card] == null)
+                        g.drawString(cardNames[card], column * cellWidth + cellWidth / 2, row * cellHeight + cellHeight / 2);
+                }
         }
     }
 
@@ -276,32 +382,32 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
     @Override
     public void placeCard(int card, int slot) {
-        gamePanel.placeCard(slot, card);
+        cardAnimation.add(() -> gamePanel.placeCard(slot, card));
     }
 
     @Override
     public void removeCard(int slot) {
-        gamePanel.removeCard(slot);
+        cardAnimation.add(() -> gamePanel.removeCard(slot));
     }
 
     @Override
     public void placeToken(int player, int slot) {
-        gamePanel.placeToken(player, slot);
+        cardAnimation.addToken(() -> gamePanel.placeToken(player, slot));
     }
 
     @Override
     public void removeTokens() {
-        gamePanel.removeTokens();
+        cardAnimation.addToken(gamePanel::removeTokens);
     }
 
     @Override
     public void removeTokens(int slot) {
-        gamePanel.removeTokens(slot);
+        cardAnimation.addToken(() -> gamePanel.removeTokens(slot));
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        gamePanel.removeToken(player, slot);
+        cardAnimation.addToken(() -> gamePanel.removeToken(player, slot));
     }
 
     @Override
@@ -1,6 +1,8 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -31,6 +33,23 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Checks if the first length cards of an array form a legal set.
+     *
+     * @param cards  - an array of card ids.
+     * @param length - the number of cards to check from the beginning of the array.
+     * @return - true iff the cards form a legal set.
+     */
+    boolean testSet(int[] cards, int length);
+
+    /**
+     * Computes the card that completes the given cards to a legal set.
+     *
+     * @param cards - an array of config.featureSize - 1 distinct card ids.
+     * @return - the card id that forms a legal set together with cards, or -1 if there is none.
+     */
+    int completeSet(int[] cards);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +59,70 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the first length cards of an array.
+     *
+     * @param deck   - an array of distinct card ids.
+     * @param length - the number of cards to search from the beginning of the array.
+     * @param count  - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    List<int[]> findSets(int[] deck, int length, int count);
+
+    /**
+     * Lazily finds the sets in the given collection of cards. The search only advances as far as the stream is
+     * consumed, and a parallel stream splits it between threads.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a stream of integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck);
+
+    /**
+     * Performs an action on each set in the given collection of cards, until the action asks to stop.
+     *
+     * @param deck   - a collection of cards (may not include null objects).
+     * @param action - receives the (sorted) card ids of each legal set found, in an array that is reused between
+     *                 calls, and returns true to continue searching or false to stop.
+     */
+    void forEachSet(List<Integer> deck, Predicate<int[]> action);
+
+    /**
+     * Counts the sets in the given collection of cards.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - the number of legal sets in the collection.
+     */
+    int countSets(List<Integer> deck);
+
+    /**
+     * Counts the sets in the first length cards of an array.
+     *
+     * @param deck   - an array of distinct card ids.
+     * @param length - the number of cards to search from the beginning of the array.
+     * @return - the number of legal sets among the cards.
+     */
+    int countSets(int[] deck, int length);
+
+    /**
+     * Checks if there is a set in the given collection of cards.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - true iff the collection contains at least one legal set.
+     */
+    boolean anySet(List<Integer> deck);
+
+    /**
+     * Finds and returns up to count sets that consist of the given card and cards from the given array.
+     *
+     * @param card   - the card that every set found must contain.
+     * @param cards  - an array of card ids (not including card).
+     * @param length - the number of cards to use from the beginning of the array.
+     * @param count  - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    List<int[]> findSetsWith(int card, int[] cards, int length, int count);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
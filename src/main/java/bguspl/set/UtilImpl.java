@@ -3,8 +3,15 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,8 +20,31 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of every card in the deck (computed once, see cardToFeatures).
+     */
+    private final int[][] deckFeatures;
+
+    /**
+     * The value a feature value is multiplied by in the card id, for each feature.
+     */
+    private final int[] featureWeights;
+
+    /**
+     * The buffers of the searches that run on each thread (see Scratch).
+     */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch());
+
     public UtilImpl(Config config) {
         this.config = config;
+
+        featureWeights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            featureWeights[i] = weight;
+
+        deckFeatures = new int[config.deckSize][config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card)
+            cardToFeatures(card, deckFeatures[card]);
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -26,68 +56,460 @@ public class UtilImpl implements Util {
 
     @Override
     public int[] cardToFeatures(int card) {
-        int[] features = new int[config.featureCount];
-        cardToFeatures(card, features);
-        return features;
+        return deckFeatures[card].clone();
     }
 
     @Override
     public int[][] cardsToFeatures(int[] cards) {
-        int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        int[][] features = new int[cards.length][];
+        for (int i = 0; i < cards.length; ++i)
+            features[i] = deckFeatures[cards[i]].clone();
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
-
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+        return testSet(cards, cards.length);
+    }
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+    @Override
+    public boolean testSet(int[] cards, int length) {
+        for (int i = 0; i < config.featureCount; ++i) {
+            int mask = 0;
+            for (int j = 0; j < length; ++j)
+                mask |= 1 << deckFeatures[cards[j]][i];
 
+            // this feature is sameSame in all cards iff they use one value, and butDifferent iff each uses its own
+            int values = Integer.bitCount(mask);
+            boolean sameSame = values <= 1, butDifferent = values == length;
             if (sameSame == butDifferent) return false;
         }
         return true;
     }
 
+    @Override
+    public int completeSet(int[] cards) {
+        int[] masks = new int[config.featureCount];
+        for (int card : cards)
+            for (int i = 0; i < config.featureCount; ++i)
+                masks[i] |= 1 << deckFeatures[card][i];
+        return completeSet(masks, cards.length);
+    }
+
+    /**
+     * Computes the card that completes a partial set, given the feature values it uses.
+     *
+     * @param masks - for each feature, a bit mask of the values the partial set uses.
+     * @param size  - the number of cards in the partial set (config.featureSize - 1).
+     * @return - the completing card id, or -1 if there is none.
+     */
+    private int completeSet(int[] masks, int size) {
+        int card = 0;
+        int allValues = (1 << config.featureSize) - 1;
+        for (int i = 0; i < config.featureCount; ++i) {
+            int values = Integer.bitCount(masks[i]);
+            int value;
+            if (values == 1) value = Integer.numberOfTrailingZeros(masks[i]); // all the same so far
+            else if (values == size) value = Integer.numberOfTrailingZeros(~masks[i] & allValues); // the missing one
+            else return -1;
+            card += value * featureWeights[i];
+        }
+        return card;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        return findSets(deck.stream().mapToInt(Integer::intValue).toArray(), deck.size(), count);
+    }
+
+    @Override
+    public List<int[]> findSets(int[] deck, int length, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
+        if (length < config.featureSize || count <= 0) return sets;
+
+        if (length >= config.parallelSearchThreshold) {
+            // the tasks get their own copy of the cards: a pool thread may run another search (with its own scratch
+            // buffers) while it waits for them
+            int[] cards = Arrays.copyOf(deck, length);
+            Arrays.sort(cards);
+            return ForkJoinPool.commonPool().invoke(new FindSetsTask(cards, length, members(cards), 0, length, count, new AtomicInteger()));
+        }
+
+        Scratch s = scratch.get();
+        s.load(deck, length);
+        try {
+            search(s.cards, length, s.members, s.set, s.masks, 0, 0, length, set -> {
+                sets.add(set.clone());
+                return sets.size() >= count;
+            });
+            return sets;
+        } finally {
+            s.unload(length);
+        }
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        int[] cards = sortedCards(deck);
+        return StreamSupport.stream(new SetSpliterator(cards, members(cards), 0, cards.length), false);
+    }
+
+    @Override
+    public void forEachSet(List<Integer> deck, Predicate<int[]> action) {
         int r = config.featureSize;
-        int[] combination = new int[r];
+        if (deck.size() < r) return;
+        int[] cards = sortedCards(deck);
+        search(cards, cards.length, members(cards), new int[r], new int[r][config.featureCount], 0, 0, cards.length,
+                set -> !action.test(set));
+    }
+
+    @Override
+    public int countSets(List<Integer> deck) {
+        return countSets(deck, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int countSets(int[] deck, int length) {
+        if (length < config.featureSize) return 0;
+
+        Scratch s = scratch.get();
+        s.load(deck, length);
+        return s.count(length, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean anySet(List<Integer> deck) {
+        return countSets(deck, 1) > 0;
+    }
+
+    /**
+     * Counts the sets in a collection of cards, up to a limit, in the buffers of the thread (so it allocates nothing).
+     *
+     * @param deck  - a collection of distinct cards.
+     * @param limit - the number of sets to stop counting at.
+     * @return - the number of sets in the cards, or limit if there are more.
+     */
+    private int countSets(List<Integer> deck, int limit) {
+        int length = deck.size();
+        if (length < config.featureSize) return 0;
+
+        Scratch s = scratch.get();
+        s.load(deck);
+        return s.count(length, limit);
+    }
+
+    /**
+     * Sorts a collection of cards, so every set in it can be found exactly once, from its lowest card id up.
+     *
+     * @param deck - a collection of cards.
+     * @return - the cards sorted by id.
+     */
+    private int[] sortedCards(List<Integer> deck) {
+        return deck.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * @param cards - an array of card ids.
+     * @return - a bitset of the cards (by card id).
+     */
+    private long[] members(int[] cards) {
+        long[] members = new long[(config.deckSize + 63) / 64];
+        for (int card : cards)
+            members[card >> 6] |= 1L << card;
+        return members;
+    }
+
+    @Override
+    public List<int[]> findSetsWith(int card, int[] cards, int length, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int r = config.featureSize;
+        if (length < r - 1) return sets;
+
+        int[] others = Arrays.copyOf(cards, length);
+        Arrays.sort(others);
+        long[] members = members(others);
+
+        // the given card is always the first one chosen, the rest are chosen in increasing id order
+        int[] set = new int[r];
+        int[][] masks = new int[r][config.featureCount];
+        set[0] = card;
+        extend(masks, 0, card);
+        search(others, others.length, members, set, masks, 1, 0, others.length, found -> {
+            int[] sorted = found.clone();
+            Arrays.sort(sorted);
+            sets.add(sorted);
+            return sets.size() >= count;
+        });
+        return sets;
+    }
 
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
+    /**
+     * Receives the sets found by a search.
+     */
+    private interface SetVisitor {
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        /**
+         * @param set - the card ids of the set found (a buffer that the search keeps reusing).
+         * @return - true iff the search should stop.
+         */
+        boolean visit(int[] set);
+    }
+
+    /**
+     * Extends a partial set with cards of increasing id until featureSize - 1 cards are chosen, then looks up the
+     * single card that completes it.
+     *
+     * @param cards   - the sorted cards to search.
+     * @param length  - the number of cards to search from the beginning of cards.
+     * @param members - a bitset of the cards to search (by card id).
+     * @param set     - the partial set (its first depth cards are chosen).
+     * @param masks   - for each depth and feature, a bit mask of the values used by the first depth cards.
+     * @param depth   - the number of cards chosen.
+     * @param from    - the index in cards to choose the next card from.
+     * @param to      - the index in cards to stop choosing the next card at (exclusive).
+     * @param visitor - the visitor of the sets found.
+     * @return - true iff the visitor stopped the search.
+     */
+    private boolean search(int[] cards, int length, long[] members, int[] set, int[][] masks, int depth, int from,
+                           int to, SetVisitor visitor) {
+        int r = config.featureSize;
+        if (depth == r - 1) {
+            int last = completeSet(masks[depth], depth);
+            if (last > set[depth - 1] && (members[last >> 6] & (1L << last)) != 0) {
+                set[depth] = last;
+                return visitor.visit(set);
             }
+            return false;
+        }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        for (int i = from; i < to && i <= length - (r - depth); ++i) {
+            set[depth] = cards[i];
+            if (extend(masks, depth, cards[i]) && search(cards, length, members, set, masks, depth + 1, i + 1, length, visitor))
+                return true;
         }
-        return sets;
+        return false;
+    }
+
+    /**
+     * Finds the sets whose lowest card is in a range of the sorted cards, splitting the range between the threads
+     * of a fork/join pool.
+     */
+    private class FindSetsTask extends RecursiveTask<List<int[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cards;
+        private final int length;
+        private final long[] members;
+        private final int from;
+        private final int to;
+        private final int count;
+
+        /**
+         * The number of sets found by all the tasks of the search (the search is cancelled once it reaches count).
+         */
+        private final AtomicInteger found;
+
+        private FindSetsTask(int[] cards, int length, long[] members, int from, int to, int count, AtomicInteger found) {
+            this.cards = cards;
+            this.length = length;
+            this.members = members;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.found = found;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                FindSetsTask left = new FindSetsTask(cards, length, members, from, middle, count, found);
+                left.fork();
+                List<int[]> right = new FindSetsTask(cards, length, members, middle, to, count, found).compute();
+                List<int[]> sets = left.join();
+                sets.addAll(right);
+                return sets;
+            }
+
+            LinkedList<int[]> sets = new LinkedList<>();
+            if (found.get() >= count) return sets;
+            int r = config.featureSize;
+            search(cards, length, members, new int[r], new int[r][config.featureCount], 0, from, to, set -> {
+                if (found.getAndIncrement() >= count) return true;
+                sets.add(set.clone());
+                return found.get() >= count;
+            });
+            return sets;
+        }
+    }
+
+    /**
+     * Lazily finds the sets whose lowest card is in a range of the sorted cards, one set per advance. Splitting
+     * hands the upper half of the lowest cards that were not reached yet to a new spliterator.
+     */
+    private class SetSpliterator implements Spliterator<int[]> {
+
+        private final int[] cards;
+        private final long[] members;
+        private int to;
+
+        /**
+         * The partial set and its feature masks (see search).
+         */
+        private final int[] set;
+        private final int[][] masks;
+
+        /**
+         * For each depth, the index in cards of the next card to choose.
+         */
+        private final int[] next;
+
+        /**
+         * The number of cards chosen.
+         */
+        private int depth;
+
+        private SetSpliterator(int[] cards, long[] members, int from, int to) {
+            this.cards = cards;
+            this.members = members;
+            this.to = to;
+            set = new int[config.featureSize];
+            masks = new int[config.featureSize][config.featureCount];
+            next = new int[config.featureSize];
+            next[0] = from;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            int r = config.featureSize;
+            while (true) {
+                if (depth == r - 1) {
+                    depth--;
+                    int last = completeSet(masks[r - 1], r - 1);
+                    if (last > set[r - 2] && (members[last >> 6] & (1L << last)) != 0) {
+                        int[] found = Arrays.copyOf(set, r);
+                        found[r - 1] = last;
+                        action.accept(found);
+                        return true;
+                    }
+                    continue;
+                }
+
+                int i = next[depth];
+                if (i > cards.length - (r - depth) || (depth == 0 && i >= to)) {
+                    if (depth == 0) return false;
+                    depth--;
+                    continue;
+                }
+                next[depth] = i + 1;
+                set[depth] = cards[i];
+                if (extend(masks, depth, cards[i])) {
+                    depth++;
+                    next[depth] = i + 1;
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            int middle = (next[0] + to) >>> 1;
+            if (middle <= next[0]) return null;
+            SetSpliterator upper = new SetSpliterator(cards, members, middle, to);
+            to = middle;
+            return upper;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * The buffers of a search that runs on a single thread and does not call back into code that may search again
+     * (so the buffers are free once it returns). It also counts the sets it visits, up to a limit.
+     */
+    private class Scratch implements SetVisitor {
+
+        private final int[] cards = new int[config.deckSize];
+        private final long[] members = new long[(config.deckSize + 63) / 64];
+        private final int[] set = new int[config.featureSize];
+        private final int[][] masks = new int[config.featureSize][config.featureCount];
+        private int count;
+        private int limit;
+
+        /**
+         * Copies distinct cards into the buffers, sorted, and adds them to the members bitset.
+         */
+        private void load(int[] deck, int length) {
+            System.arraycopy(deck, 0, cards, 0, length);
+            sortAndAdd(length);
+        }
+
+        /**
+         * Copies a collection of distinct cards into the buffers, sorted, and adds them to the members bitset.
+         */
+        private void load(List<Integer> deck) {
+            int length = 0;
+            for (int card : deck)
+                cards[length++] = card;
+            sortAndAdd(length);
+        }
+
+        private void sortAndAdd(int length) {
+            Arrays.sort(cards, 0, length);
+            for (int i = 0; i < length; ++i)
+                members[cards[i] >> 6] |= 1L << cards[i];
+        }
+
+        /**
+         * Clears the members bitset after a search.
+         */
+        private void unload(int length) {
+            for (int i = 0; i < length; ++i)
+                members[cards[i] >> 6] = 0;
+        }
+
+        /**
+         * Counts the sets among the loaded cards, up to a limit, then unloads them.
+         */
+        private int count(int length, int limit) {
+            count = 0;
+            this.limit = limit;
+            try {
+                search(cards, length, members, set, masks, 0, 0, length, this);
+            } finally {
+                unload(length);
+            }
+            return count;
+        }
+
+        @Override
+        public boolean visit(int[] set) {
+            return ++count >= limit;
+        }
+    }
+
+    /**
+     * Adds a card to the feature masks of a partial set.
+     *
+     * @return - true iff every feature is still all the same or all different.
+     */
+    private boolean extend(int[][] masks, int depth, int card) {
+        boolean valid = true;
+        for (int i = 0; i < config.featureCount; ++i) {
+            int mask = masks[depth][i] | 1 << deckFeatures[card][i];
+            masks[depth + 1][i] = mask;
+            int values = Integer.bitCount(mask);
+            valid &= values == 1 || values == depth + 1;
+        }
+        return valid;
     }
 
     public void spin() {
@@ -0,0 +1,84 @@
+package bguspl.set;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A game clock that stands still until it is advanced. Advancing it fast-forwards the game: every thread waiting for
+ * a deadline (a turn timeout, the end of a freeze) that the clock passes wakes up right away.
+ */
+public class VirtualClock implements GameClock {
+
+    /**
+     * The current game time, in milliseconds.
+     */
+    private final AtomicLong now;
+
+    /**
+     * The threads parked until some deadline.
+     */
+    private final Set<Thread> parked = ConcurrentHashMap.newKeySet();
+
+    public VirtualClock() {
+        this(0);
+    }
+
+    /**
+     * @param startMillis - the game time the clock starts at.
+     */
+    public VirtualClock(long startMillis) {
+        now = new AtomicLong(startMillis);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now.get();
+    }
+
+    @Override
+    public void parkUntil(Object blocker, long deadline) {
+        Thread thread = Thread.currentThread();
+        // register before checking the time, so an advance in between unparks the thread before it parks
+        parked.add(thread);
+        try {
+            if (now.get() < deadline)
+                LockSupport.park(blocker);
+        } finally {
+            parked.remove(thread);
+        }
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param millis - the number of game milliseconds to move forward by.
+     */
+    public void advance(long millis) {
+        now.addAndGet(millis);
+        wakeParked();
+    }
+
+    /**
+     * Moves the clock forward to a given time (does nothing if the clock is already past it).
+     *
+     * @param millis - the game time to move to, in milliseconds.
+     */
+    public void advanceTo(long millis) {
+        long current;
+        while ((current = now.get()) < millis)
+            if (now.compareAndSet(current, millis)) {
+                wakeParked();
+                return;
+            }
+    }
+
+    /**
+     * Wakes up the parked threads, so they check their deadlines against the new time.
+     */
+    private void wakeParked() {
+        for (Thread thread : parked)
+            LockSupport.unpark(thread);
+    }
+}
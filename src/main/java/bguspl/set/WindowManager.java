@@ -8,6 +8,21 @@ import java.awt.event.WindowListener;
  */
 public class WindowManager implements WindowListener {
 
+    /**
+     * The game shown in the window.
+     */
+    private final GameSession session;
+
+    /**
+     * The thread to wait for before the window closes (and the process exits).
+     */
+    private final Thread shutdownThread;
+
+    public WindowManager(GameSession session, Thread shutdownThread) {
+        this.session = session;
+        this.shutdownThread = shutdownThread;
+    }
+
     @Override
     public void windowOpened(WindowEvent e) {
         // Auto-generated method stub
@@ -15,8 +30,10 @@ public class WindowManager implements WindowListener {
 
     @Override
     public void windowClosing(WindowEvent e) {
+        session.env.logger.severe("exit button pressed");
+        session.close();
         try {
-            Main.xButtonPressed();
+            shutdownThread.join();
         } catch (InterruptedException ignored) {}
     }
 
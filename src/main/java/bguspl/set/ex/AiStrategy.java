@@ -0,0 +1,41 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Random;
+
+/**
+ * How a computer player chooses its key presses. Each computer player has a strategy object of its own (which may keep
+ * state between key presses), chosen by config.botStrategies.
+ */
+public interface AiStrategy {
+
+    /**
+     * Chooses the next key press of the player.
+     *
+     * @param random - the source of randomness of the player's AI.
+     * @return - the slot to press, or -1 to press nothing this time.
+     */
+    int chooseKey(Random random);
+
+    /**
+     * Creates the strategy of a computer player.
+     *
+     * @param env    - the game environment object.
+     * @param table  - the table the player plays on.
+     * @param player - the id of the player.
+     * @return - the strategy config.botStrategies sets for the player.
+     */
+    static AiStrategy create(Env env, Table table, int player) {
+        // a player the configuration counts as human (e.g. in a test) gets the random strategy
+        String strategy = env.config.botStrategies[player];
+        switch (strategy == null ? "random" : strategy) {
+            case "perfect":
+                return new SetSeekingStrategy(env, table, player, 0, 0);
+            case "human":
+                return new SetSeekingStrategy(env, table, player, env.config.botReactionMillis, env.config.botErrorRate);
+            default:
+                return new RandomStrategy(env, table, player);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class takes the actions of all the computer players of a game, from a thread of its own. Each computer player
+ * acts at its own rate (config.botActionsPerSecond): the scheduler keeps the players ordered by the game time of their
+ * next action, and sleeps on the game clock until the first one is due. So the cost of the computer players grows with
+ * the actions they take, not with how many of them there are.
+ */
+class BotScheduler implements Runnable {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The players of the game (the computer ones among them are scheduled).
+     */
+    private final Player[] players;
+
+    /**
+     * True iff the scheduler should stop.
+     */
+    private volatile boolean terminate;
+
+    /**
+     * The scheduler thread, unparked when the scheduler should stop.
+     */
+    private volatile Thread schedulerThread;
+
+    BotScheduler(Env env, Player[] players) {
+        this.env = env;
+        this.players = players;
+    }
+
+    /**
+     * The scheduler thread starts here.
+     */
+    @Override
+    public void run() {
+        schedulerThread = Thread.currentThread();
+        PriorityQueue<Bot> bots = new PriorityQueue<>();
+        for (Player player : players)
+            if (!player.isHuman() && player.aiPeriodMillis() != Long.MAX_VALUE)
+                bots.add(new Bot(player, env.random(1 + player.id), env.clock.currentTimeMillis()));
+
+        while (!terminate && !bots.isEmpty()) {
+            Bot bot = bots.peek();
+            if (env.clock.currentTimeMillis() < bot.nextAction) {
+                env.clock.parkUntil(this, bot.nextAction);
+                continue;
+            }
+            bots.poll();
+            bot.player.aiAction(bot.random);
+            // the next action is due a whole period after this one was taken (a late action does not make the next early)
+            bot.nextAction = env.clock.currentTimeMillis() + bot.player.aiPeriodMillis();
+            bots.add(bot);
+        }
+    }
+
+    /**
+     * Stops the scheduler thread.
+     */
+    public void terminate() {
+        terminate = true;
+        LockSupport.unpark(schedulerThread);
+    }
+
+    /**
+     * A computer player, its source of randomness, and the game time of its next action.
+     */
+    private static class Bot implements Comparable<Bot> {
+        final Player player;
+        final Random random;
+        long nextAction;
+
+        Bot(Player player, Random random, long nextAction) {
+            this.player = player;
+            this.random = random;
+            this.nextAction = nextAction;
+        }
+
+        @Override
+        public int compareTo(Bot other) {
+            return Long.compare(nextAction, other.nextAction);
+        }
+    }
+}
@@ -4,17 +4,13 @@ import bguspl.set.Env;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Queue;
-import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.IntStream;
 
 /**
@@ -34,9 +30,36 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck (only the first deckSize entries are valid, in no order).
      */
-    private final List<Integer> deck;
+    private final int[] deck;
+    private int deckSize;
+
+    /**
+     * The source of randomness for drawing cards from the deck.
+     */
+    private final Random random;
+
+    /**
+     * Reusable buffers for the cards drawn in one deal and the slots they go to.
+     */
+    private final int[] drawnCards;
+    private final int[] drawnSlots;
+
+    /**
+     * The legal sets that can still be formed from the cards in the deck and on the table.
+     */
+    private final RemainingSets remainingSets;
+
+    /**
+     * Refreshes the countdown and freeze timers on the screen.
+     */
+    private final TimerDisplay timerDisplay;
+
+    /**
+     * Takes the actions of the computer players.
+     */
+    private final BotScheduler botScheduler;
 
     /**
      * True iff game should be terminated.
@@ -48,14 +71,85 @@ public class Dealer implements Runnable {
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
-    private final Queue<Integer> setClaims;
+    /**
+     * The version of the table the hints were last shown for (see config.hints).
+     */
+    private long hintedVersion = -1;
+
+    /**
+     * The set claims waiting for the dealer's verdict, in the order they were made.
+     * Any player thread may add to it without locking; only the dealer thread takes from it.
+     */
+    private final Queue<Claim> setClaims;
+
+    /**
+     * The number of claims checked, and the total real time (in nanoseconds) from making them until they were checked.
+     */
+    private final LongAdder claimCount = new LongAdder();
+    private final LongAdder claimLatencyNanos = new LongAdder();
+
+    /**
+     * The number of claims checked that were legal sets.
+     */
+    private final LongAdder validClaimCount = new LongAdder();
+
+    /**
+     * The number of claims dropped without a verdict, as their tokens were removed before they were checked.
+     */
+    private final LongAdder droppedClaimCount = new LongAdder();
+
+    /**
+     * The dealer thread, unparked by the players when they make a claim.
+     */
+    private volatile Thread dealerThread;
+
+    /**
+     * True iff the whole game runs on one thread (see EventSimulation), so claims are checked as soon as they are made.
+     */
+    private final boolean inline;
+
+    /**
+     * The log the game is recorded in (null if it is not recorded).
+     */
+    private final GameLog log;
 
     public Dealer(Env env, Table table, Player[] players) {
+        this(env, table, players, env.random(0));
+    }
+
+    /**
+     * @param random - the source of randomness for drawing cards (pass a seeded one to get the same deals every game).
+     */
+    public Dealer(Env env, Table table, Player[] players, Random random) {
+        this(env, table, players, random, false, null);
+    }
+
+    /**
+     * @param log - the log to record the game in.
+     */
+    public Dealer(Env env, Table table, Player[] players, GameLog log) {
+        this(env, table, players, env.random(0), false, log);
+    }
+
+    Dealer(Env env, Table table, Player[] players, Random random, boolean inline) {
+        this(env, table, players, random, inline, null);
+    }
+
+    private Dealer(Env env, Table table, Player[] players, Random random, boolean inline, GameLog log) {
         this.env = env;
+        this.inline = inline;
+        this.log = log;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        this.setClaims = new LinkedList<>();
+        this.random = random;
+        deck = IntStream.range(0, env.config.deckSize).toArray();
+        deckSize = deck.length;
+        drawnCards = new int[env.config.tableSize];
+        drawnSlots = new int[env.config.tableSize];
+        remainingSets = new RemainingSets(env);
+        this.setClaims = new ConcurrentLinkedQueue<>();
+        this.timerDisplay = new TimerDisplay(env, players);
+        this.botScheduler = new BotScheduler(env, players);
     }
 
     /**
@@ -65,16 +159,20 @@ public class Dealer implements Runnable {
     public void run() {
         //NO need to info this in logger because ThreadLogger is doing it already.
         //env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+        dealerThread = Thread.currentThread();
+        new Thread(timerDisplay, "Timer display").start();
+        if (env.config.playerThreads.equals("virtual") && !PlayerThreads.virtualAvailable())
+            env.logger.warning("virtual threads need Java 21 or later (running the players on platform threads)");
         for (Player p : players)
-            new Thread(p, "Player #" + p.id).start();;
+            PlayerThreads.newThread(env, p, "Player #" + p.id).start();
+        new Thread(botScheduler, "Bot scheduler").start();
         
-        while (!shouldFinish()) {
-            placeCardsOnTable();
+        while (log == null ? startRound() : log.recordIf("D", this::startRound)) {
             timerLoop();
-            updateTimerDisplay(false);
-            removeAllCardsFromTable();
+            if (log == null) endRound(); else log.record("E", this::endRound);
         }
         announceWinners();
+        releaseClaims();
         //NO need to info this in logger because ThreadLogger is doing it already.
         //env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
@@ -83,46 +181,107 @@ public class Dealer implements Runnable {
      * Adding a set claim
      * 
      * @param playerId - the player that claimed for a set
-     * @return         - true iff the player was inserted to the queue
+     * @return         - true iff the player was inserted to the queue (false once the game is over)
      */
     public boolean addClaim(int playerId) {
-        boolean added = false;
-        synchronized(setClaims) {
-            // now dealer cant remove tokens and keypress is waiting so no change to the player tokens can be made
-            if (table.countTokens(playerId) == 3){
-                // player has 3 tokens
-                setClaims.add(playerId); 
-                added = true;
-            }
-        }
-        // PROBLEM: dealer removed the player token, so he removed him from the queue too and notified, then player sent to wait - nobody notifies him
-        if (added) {
-            try{ 
-                // make the playerThread wait on the dealer until a set is checked and then everybody are notified
-                synchronized(this) {
-                    while (setClaims.contains(playerId))
-                        wait(100); 
-                }
-            } catch (InterruptedException ignored) {}
+        // keypress is waiting so no change to the player tokens can be made by the player itself
+        if (table.countTokens(playerId) != 3 || terminate)
+            return false;
+
+        // nobody else is running, so check the claim right away (as the dealer thread does when it wakes up)
+        if (inline) {
+            queueClaim(playerId);
+            checkClaims();
+            return true;
         }
 
-        return added;
+        // the dealer wakes up as soon as the claim is queued, and signals the player once it is done with it
+        Claim claim = new Claim(playerId);
+        setClaims.add(claim);
+        // the dealer releases the claims it did not check once it stops, but it may have stopped before this one came
+        if (terminate && setClaims.remove(claim))
+            return false;
+        LockSupport.unpark(dealerThread);
+        try {
+            claim.done.await();
+        } catch (InterruptedException ignored) {}
+
+        return true;
+    }
+
+    /**
+     * Deals the cards of a new round, unless the game should finish.
+     *
+     * @return - true iff a round started.
+     */
+    boolean startRound() {
+        if (shouldFinish())
+            return false;
+        placeCardsOnTable();
+        showHints();
+        return true;
+    }
+
+    /**
+     * @return - true iff the current round is over: the countdown ran out, or the game should finish.
+     */
+    boolean roundOver() {
+        return terminate || env.clock.currentTimeMillis() >= reshuffleTime;
+    }
+
+    /**
+     * @return - the time when the current round ends due to turn timeout.
+     */
+    long reshuffleTime() {
+        return reshuffleTime;
+    }
+
+    /**
+     * Ends the current round by taking all the cards off the table.
+     */
+    void endRound() {
+        updateTimerDisplay(false);
+        removeAllCardsFromTable();
     }
 
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() {
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        while (!roundOver()) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
-            removeCardsFromTable();
-            placeCardsOnTable();
+            if (log == null) checkClaims(); else log.record("P", this::checkClaims);
         }
-        if (System.currentTimeMillis() >= reshuffleTime)
+        if (env.clock.currentTimeMillis() >= reshuffleTime)
             updateTimerDisplay(true);
     }
 
+    /**
+     * Checks the pending claims, then deals to the slots their sets were removed from.
+     */
+    void checkClaims() {
+        removeCardsFromTable();
+        updateTimerDisplay(false);
+        placeCardsOnTable();
+        showHints();
+    }
+
+    /**
+     * Queues a claim without waiting for it to be checked (for a game replayed on one thread, see GameReplay).
+     *
+     * @param playerId - the player that claimed a set.
+     */
+    void queueClaim(int playerId) {
+        setClaims.add(new Claim(playerId));
+    }
+
+    /**
+     * @return - the log the game is recorded in (null if it is not recorded).
+     */
+    GameLog log() {
+        return log;
+    }
+
     /**
      * Called when the game should be terminated.
      */
@@ -130,8 +289,11 @@ public class Dealer implements Runnable {
         // First we terminate all players
         for (Player p : players)
             p.terminate();
-        // then we terminate the dealer
+        // then we terminate the dealer (waking it up, as it may be sleeping until the end of the round)
         terminate = true;
+        LockSupport.unpark(dealerThread);
+        timerDisplay.terminate();
+        botScheduler.terminate();
 
     }
 
@@ -141,150 +303,310 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !remainingSets.hasSet();
     }
 
     /**
-     * Checks cards should be removed from the table and removes them.
+     * Checks all the pending claims, in the order they were made, and removes the cards of every legal set.
      */
     private void removeCardsFromTable() {
-        if (!setClaims.isEmpty()){
-            // remove the player from the queue
-            int playerId;
-            synchronized (setClaims) {
-                playerId = setClaims.remove();
-            }
-            // get the actual set
+        Claim claim;
+        while ((claim = setClaims.poll()) != null){
+            int playerId = claim.playerId;
+            if (log != null)
+                log.add("C " + playerId);
+
+            // get the actual set - a claim whose tokens were removed since it was made (also by an earlier claim
+            // of this batch) is dropped without a verdict
             int[] cards = table.getPlayerTokensCards(playerId);
-            if (cards.length != 3)
-                throw new UnsupportedOperationException("Something went wrong, no enough cards in set" + cards.length);
-            Set<Integer> playersToRemoveAndNotify = new HashSet<>();
-            
-            // check if it is a set
-            if (env.util.testSet(cards)){
-                // remove all cards and tokens
-                for (int card : cards) 
-                    playersToRemoveAndNotify.addAll(removeCardWithTokens(table.cardToSlot[card]));
-
-                players[playerId].point();
-            }
-            else{
-                players[playerId].penalty();
+            if (cards.length == 3) {
+                // check if it is a set
+                if (env.util.testSet(cards)){
+                    // remove all cards and tokens
+                    for (int card : cards) {
+                        removeCardWithTokens(table.cardToSlot[card]);
+                        remainingSets.remove(card);
+                    }
+
+                    players[playerId].point();
+                    validClaimCount.increment();
+                }
+                else{
+                    players[playerId].penalty();
+                }
+                claimCount.increment();
+                claimLatencyNanos.add(System.nanoTime() - claim.start);
             }
-            // remove players from the queue if needed, and notify everyone
-            removeAndNotifyAllPlayers(playersToRemoveAndNotify);
+            else
+                droppedClaimCount.increment();
+            claim.done.countDown();
         }
     }
 
     /**
-     * @param slot  - the slot to remove the card and tokens from
-     * @return      - set of players that their tokens were removed from this slot
+     * Lets go of the players waiting for claims that will not be checked (after the game is terminated).
      */
-    private Set<Integer> removeCardWithTokens(int slot){
-        table.lockTable();
-        Set<Integer> playersWithRemovedTokens = new HashSet<>();
+    private void releaseClaims() {
+        Claim claim;
+        while ((claim = setClaims.poll()) != null)
+            claim.done.countDown();
+    }
 
+    /**
+     * @param slot  - the slot to remove the card and tokens from
+     */
+    private void removeCardWithTokens(int slot){
         // remove the card
         table.removeCard(slot);
 
         // remove the tokens of all players from this card
         for (int playerId = 0; playerId < env.config.players; playerId++)
-            if (table.removeToken(playerId, slot))
-                // for each player like that, remove him from the queue and notify later
-                playersWithRemovedTokens.add(playerId);
+            table.removeToken(playerId, slot);
+    }
+
+    /**
+     * Check if any cards can be removed from the deck and placed on the table.
+     */
+    private void placeCardsOnTable() {
+        dealCards(null);
+        if (table.hasSet())
+            return;
 
-        return playersWithRemovedTokens;
+        // no set is left in the game (not even with the cards in the deck)
+        if (!remainingSets.hasSet()){
+            removeAllCardsFromTable();
+            terminate = true;
+            return;
+        }
+
+        switch (env.config.dealingPolicy) {
+            case "random":
+                do {
+                    removeAllCardsFromTable();
+                    dealCards(null);
+                } while (!table.hasSet());
+                break;
+            case "adaptive":
+                // plant a whole set only if no card in the deck completes a set with the cards on the table
+                if (!replaceCardToCompleteSet())
+                    dealPlantedSet();
+                break;
+            default:
+                dealPlantedSet();
+        }
     }
 
     /**
-     * Removes the players from the set claims queue and notifies them
-     * 
-     * @param playersSet - the players to remove from the set claims
+     * Returns the cards on the table to the deck and deals again, with a legal set from the deck among the cards.
+     *
+     * @pre - there is a legal set among the cards in the deck and on the table.
      */
-    private void removeAndNotifyAllPlayers(Set<Integer> playersSet) {
-        synchronized (setClaims) {
-            for (Integer p : playersSet){
-                setClaims.remove(p);
-            }
+    private void dealPlantedSet() {
+        removeAllCardsFromTable();
+        dealCards(findSetInDeck());
+    }
+
+    /**
+     * Logs the sets on the table if hints are on and the cards changed since they were last shown.
+     */
+    private void showHints() {
+        if (env.config.hints && table.version() != hintedVersion) {
+            hintedVersion = table.version();
+            table.hints();
         }
-        
-        synchronized(this) { notifyAll(); }
     }
 
     /**
-     * Check if any cards can be removed from the deck and placed on the table.
+     * Draws a card from the deck for each empty slot (as long as there are cards) and places them all at once.
+     *
+     * @param planted - cards from the deck to place in the first empty slots (the rest are random), or null.
      */
-    private void placeCardsOnTable() {
-        Collections.shuffle(deck);
+    private void dealCards(int[] planted) {
+        int count = 0;
+        for (int slot = 0; slot < env.config.tableSize && deckSize > 0; slot++){
+            if (table.slotToCard[slot] == null){
+                drawnCards[count] = planted != null && count < planted.length ? drawCard(planted[count]) : drawCard();
+                drawnSlots[count++] = slot;
+            }
+        }
+        if (count > 0) {
+            table.placeCards(Arrays.copyOf(drawnCards, count), Arrays.copyOf(drawnSlots, count));
+            updateTimerDisplay(true);
+        }
+    }
 
-        for (int slot = 0; slot < env.config.tableSize; slot++){
-            // for each empty slot
-            if (table.slotToCard[slot] == null && deck.size() > 0){
-                // place card from deck if possible
-                table.placeCard(deck.remove(0), slot);
+    /**
+     * Replaces a card on the table with a card from the deck that completes a set with other cards on the table.
+     *
+     * @return - true iff such a card was found in the deck (and replaced a card on the table).
+     * @pre - there is no set on the table.
+     */
+    private boolean replaceCardToCompleteSet() {
+        int[] tableCards = new int[env.config.tableSize];
+        int length = 0;
+        for (Integer card : table.slotToCard)
+            if (card != null)
+                tableCards[length++] = card;
+        if (length < env.config.featureSize)
+            return false;
+
+        // try the cards of the deck starting from a random one, so the card chosen is not always the same
+        int start = deckSize > 0 ? random.nextInt(deckSize) : 0;
+        for (int i = 0; i < deckSize; i++){
+            int card = deck[(start + i) % deckSize];
+            List<int[]> sets = env.util.findSetsWith(card, tableCards, length, 1);
+            if (!sets.isEmpty()){
+                // the table has more cards than the set uses, so some card on it is not part of the set
+                int[] set = sets.get(0);
+                int slot = 0;
+                while (table.slotToCard[slot] == null || contains(set, table.slotToCard[slot]))
+                    slot++;
+
+                int replaced = table.slotToCard[slot];
+                removeCardWithTokens(slot);
+                table.placeCard(drawCard(card), slot);
+                deck[deckSize++] = replaced;
                 updateTimerDisplay(true);
+                return true;
             }
         }
+        return false;
+    }
 
-        // check if there are no sets
-        if (deck.size() > 0 && env.util.findSets(Arrays.asList(table.slotToCard).stream().filter(Objects::nonNull).collect(Collectors.toList()), 1).size() == 0){
-            removeAllCardsFromTable();
-            placeCardsOnTable();
-        }
-        else if (deck.size() == 0 && env.util.findSets(Arrays.asList(table.slotToCard).stream().filter(Objects::nonNull).collect(Collectors.toList()), 1).size() == 0){
-            removeAllCardsFromTable();
-            terminate = true;
+    /**
+     * @return - the cards of a legal set found in the deck, starting from a random card.
+     * @pre - all the cards left in the game are in the deck, and there is a legal set among them.
+     */
+    private int[] findSetInDeck() {
+        int start = random.nextInt(deckSize);
+        int last = deckSize - 1;
+        for (int i = 0; i < deckSize; i++){
+            // move the card to the end of the deck, so it can be searched with the cards before it
+            int index = (start + i) % deckSize;
+            swapInDeck(index, last);
+            List<int[]> sets = env.util.findSetsWith(deck[last], deck, last, 1);
+            swapInDeck(index, last);
+            if (!sets.isEmpty())
+                return sets.get(0);
         }
+        return null;
+    }
+
+    private void swapInDeck(int i, int j) {
+        int card = deck[i];
+        deck[i] = deck[j];
+        deck[j] = card;
+    }
 
-        // finished placing cards
-        table.unlockTable();
+    private static boolean contains(int[] cards, int card) {
+        for (int c : cards)
+            if (c == card)
+                return true;
+        return false;
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Draws a random card from the deck, by one step of a Fisher-Yates shuffle: the card drawn swaps places with the
+     * last card of the deck, which is then cut off.
+     *
+     * @return - the card drawn.
+     * @pre - the deck is not empty.
      */
-    private void sleepUntilWokenOrTimeout() {
-        try {
-            while(System.currentTimeMillis() < reshuffleTime && setClaims.size() == 0){
-                Thread.sleep(30);
-                updateTimerDisplay(false);
-            }
-        } 
-        catch (InterruptedException ignored) {}
+    private int drawCard() {
+        return drawCardAt(random.nextInt(deckSize));
     }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * Draws a specific card from the deck.
+     *
+     * @param card - the card to draw.
+     * @return - the card drawn.
+     * @pre - the card is in the deck.
      */
-    private void updateTimerDisplay(boolean reset) {
-        if (reset)
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+    private int drawCard(int card) {
+        int i = 0;
+        while (deck[i] != card)
+            i++;
+        return drawCardAt(i);
+    }
 
-        env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), 
-                            reshuffleTime - System.currentTimeMillis() < env.config.turnTimeoutWarningMillis);
+    private int drawCardAt(int i) {
+        int card = deck[i];
+        deck[i] = deck[--deckSize];
+        return card;
+    }
 
-        for (Player p : players)
-            env.ui.setFreeze(p.id, Math.max(p.getFreezeUntil() - System.currentTimeMillis(), 0) );
+    /**
+     * Sleep until a set is claimed or the countdown runs out, whichever comes first.
+     */
+    private void sleepUntilWokenOrTimeout() {
+        // a claim added after this check unparks the dealer, so the park returns right away
+        if (setClaims.isEmpty())
+            env.clock.parkUntil(this, reshuffleTime);
+    }
+
+    /**
+     * Reset the countdown, or let the display know a player may have been frozen.
+     * The display itself is refreshed by the timer display thread.
+     */
+    private void updateTimerDisplay(boolean reset) {
+        if (reset) {
+            reshuffleTime = env.clock.currentTimeMillis() + env.config.turnTimeoutMillis;
+            timerDisplay.resetCountdown(reshuffleTime);
+        }
+        else
+            timerDisplay.wakeUp();
     }
 
     /**
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
-        // start removing all cards
-        table.lockTable();
+        // add the cards back to the deck (all the tokens are removed with them)
+        for (int card : table.clearTable())
+            deck[deckSize++] = card;
+        updateTimerDisplay(true);
+    }
 
-        Set<Integer> playersToRemoveAndNotify = new HashSet<>();
+    /**
+     * @return - the number of claims the dealer checked so far (not counting the dropped ones).
+     */
+    public long claimCount() {
+        return claimCount.sum();
+    }
 
-        for (int slot = 0; slot < env.config.tableSize; slot++){
-            // add the card back to the deck
-            if (table.slotToCard[slot] != null)
-                deck.add(table.slotToCard[slot]);
-            playersToRemoveAndNotify.addAll(removeCardWithTokens(slot));
-            updateTimerDisplay(true);
+    /**
+     * @return - the number of claims checked so far that were legal sets.
+     */
+    public long validClaimCount() {
+        return validClaimCount.sum();
+    }
+
+    /**
+     * @return - the number of claims dropped so far without a verdict (their tokens were removed before the check).
+     */
+    public long droppedClaimCount() {
+        return droppedClaimCount.sum();
+    }
+
+    /**
+     * @return - the total time (in real nanoseconds) from making the claims checked so far until they were checked.
+     */
+    public long claimLatencyNanos() {
+        return claimLatencyNanos.sum();
+    }
+
+    /**
+     * A set claim of a player, and the signal the dealer gives the player once the claim is checked or dropped.
+     */
+    private static class Claim {
+        final int playerId;
+        final CountDownLatch done = new CountDownLatch(1);
+        final long start = System.nanoTime();
+
+        Claim(int playerId) {
+            this.playerId = playerId;
         }
-        
-        removeAndNotifyAllPlayers(playersToRemoveAndNotify);
     }
 
     /**
@@ -316,7 +638,7 @@ public class Dealer implements Runnable {
     /**
      * Check who is/are the winner/s and displays them.
      */
-    private void announceWinners() {
+    void announceWinners() {
         env.ui.announceWinner(getHighestScores());
         terminate();
     }
@@ -0,0 +1,182 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.Util;
+import bguspl.set.VirtualClock;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Runs a whole game of computer players on the calling thread, as a discrete-event simulation: the AI key presses are
+ * events in a queue ordered by (virtual) game time, and the clock jumps from one event to the next. The game follows
+ * the same rules as a threaded one (the dealer and the players run the same code), but it has no threads to switch
+ * between and nothing ever waits, so with the same seed it always plays out the same way. Its sources of randomness
+ * are derived from the seed like those of a threaded game (see Env.random), so the dealer deals the same cards.
+ */
+public class EventSimulation {
+
+    /**
+     * The game clock, moved forward to each event as it runs.
+     */
+    private final VirtualClock clock;
+
+    /**
+     * The source of randomness of the AI of each player.
+     */
+    private final Random[] aiRandom;
+
+    /**
+     * Game entities.
+     */
+    private final Dealer dealer;
+    private final Player[] players;
+
+    /**
+     * The events waiting to run, by time (and by the order they were scheduled in, for events at the same time).
+     */
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+
+    /**
+     * The number of events scheduled so far (used to order events at the same time).
+     */
+    private long scheduled;
+
+    /**
+     * The number of events run so far.
+     */
+    private long eventsRun;
+
+    /**
+     * @param seed - the seed of the game (the same seed plays the same game).
+     */
+    public EventSimulation(Logger logger, Config config, Util util, long seed) {
+        if (config.turnTimeoutMillis <= 0)
+            throw new IllegalArgumentException("a simulated game needs a positive turn timeout");
+        this.clock = new VirtualClock();
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), util, clock, seed);
+        this.players = new Player[config.players];
+        this.aiRandom = new Random[config.players];
+        Table table = new Table(env);
+        this.dealer = new Dealer(env, table, players, env.random(0), true);
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new Player(env, dealer, table, i, false);
+            aiRandom[i] = env.random(1 + i);
+        }
+    }
+
+    /**
+     * Plays the game to its end.
+     */
+    public void run() {
+        for (Player player : players)
+            schedule(player.aiPeriodMillis(), player);
+
+        while (dealer.startRound()) {
+            // run the events due before the countdown runs out (a set found may reset the countdown)
+            while (!dealer.roundOver()) {
+                Event next = events.peek();
+                if (next == null || next.time >= dealer.reshuffleTime()) {
+                    clock.advanceTo(dealer.reshuffleTime());
+                    break;
+                }
+                events.poll();
+                clock.advanceTo(next.time);
+                eventsRun++;
+                int key = next.player.nextAiKey(aiRandom[next.player.id]);
+                if (key != -1)
+                    next.player.pressKeyInline(key);
+                schedule(next.player.aiPeriodMillis(), next.player);
+            }
+            dealer.endRound();
+        }
+        dealer.announceWinners();
+    }
+
+    /**
+     * Schedules a key press of the AI of a player.
+     *
+     * @param delay  - the game time until the key press, in milliseconds.
+     * @param player - the player pressing the key.
+     */
+    private void schedule(long delay, Player player) {
+        // a computer player that takes no actions has no events
+        if (delay != Long.MAX_VALUE)
+            events.add(new Event(clock.currentTimeMillis() + delay, scheduled++, player));
+    }
+
+    /**
+     * @return - the number of sets collected in the game so far.
+     */
+    public int setsCollected() {
+        int sets = 0;
+        for (Player player : players)
+            sets += player.score();
+        return sets;
+    }
+
+    /**
+     * @return - the game time that passed so far, in milliseconds.
+     */
+    public long gameTimeMillis() {
+        return clock.currentTimeMillis();
+    }
+
+    /**
+     * @return - the number of events run so far.
+     */
+    public long eventsRun() {
+        return eventsRun;
+    }
+
+    /**
+     * @return - the number of set claims checked so far.
+     */
+    public long claimCount() {
+        return dealer.claimCount();
+    }
+
+    /**
+     * @return - the number of set claims checked so far that were legal sets.
+     */
+    public long validClaimCount() {
+        return dealer.validClaimCount();
+    }
+
+    /**
+     * @return - the number of set claims so far that were dropped without a verdict.
+     */
+    public long droppedClaimCount() {
+        return dealer.droppedClaimCount();
+    }
+
+    /**
+     * @return - the players of the game.
+     */
+    public Player[] players() {
+        return players;
+    }
+
+    /**
+     * A key press of the AI of a player at some game time.
+     */
+    private static class Event implements Comparable<Event> {
+        final long time;
+        final long order;
+        final Player player;
+
+        Event(long time, long order, Player player) {
+            this.time = time;
+            this.order = order;
+            this.player = player;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            return time != other.time ? Long.compare(time, other.time) : Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package bguspl.set.ex;
+
+import bguspl.set.GameClock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The record of a threaded game, in the order its actions changed the table: the tokens the players placed and removed,
+ * the claims the dealer checked, and the dealer's deals. The recorded actions take the lock of the log, so no two of
+ * them run at once and the order they are logged in is the order they happened in. Replaying the actions in that order
+ * on a game with the same seed (see GameReplay) plays out the same game, however its threads were scheduled.
+ * <p>
+ * Each line of the log is an action, prefixed by the game time it ended at:
+ * "D" - the dealer started a round, "E" - the dealer ended a round, "T player slot" - a player placed or removed a
+ * token, "C player" - the dealer checked a claim of a player, "P" - the dealer dealt after checking the claims before it.
+ */
+public class GameLog {
+
+    /**
+     * The seed of the game recorded.
+     */
+    public final long seed;
+
+    /**
+     * The clock of the game recorded.
+     */
+    private final GameClock clock;
+
+    /**
+     * The actions recorded so far.
+     */
+    private final List<String> actions = new ArrayList<>();
+
+    /**
+     * Taken by the recorded actions (a lock rather than the log's monitor, so the players may run on virtual threads).
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public GameLog(long seed, GameClock clock) {
+        this.seed = seed;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs an action and records it, with no other recorded action running at the same time.
+     *
+     * @param event  - the line to record for it.
+     * @param action - the action to run.
+     */
+    public void record(String event, Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+            add(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs an action and records it if it took place, with no other recorded action running at the same time.
+     *
+     * @param event  - the line to record for it.
+     * @param action - the action to run, returning false if it did not take place.
+     * @return - the result of the action.
+     */
+    public boolean recordIf(String event, BooleanSupplier action) {
+        lock.lock();
+        try {
+            boolean done = action.getAsBoolean();
+            if (done)
+                add(event);
+            return done;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a part of an action that is being recorded (by the same thread).
+     *
+     * @param event - the line to record.
+     */
+    void add(String event) {
+        lock.lock();
+        try {
+            actions.add(clock.currentTimeMillis() + " " + event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the log to a file, followed by the final scores of the players.
+     *
+     * @param file    - the file to write to.
+     * @param players - the players of the game.
+     */
+    public void write(Path file, Player[] players) throws IOException {
+        List<String> lines = new ArrayList<>(actions.size() + 2);
+        lines.add("seed " + seed);
+        lock.lock();
+        try {
+            lines.addAll(actions);
+        } finally {
+            lock.unlock();
+        }
+        lines.add("scores " + scores(players));
+        Files.write(file, lines);
+    }
+
+    /**
+     * @return - the scores of the players, separated by spaces.
+     */
+    static String scores(Player[] players) {
+        StringBuilder scores = new StringBuilder();
+        for (Player player : players)
+            scores.append(scores.length() == 0 ? "" : " ").append(player.score());
+        return scores.toString();
+    }
+}
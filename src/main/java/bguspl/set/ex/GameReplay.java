@@ -0,0 +1,128 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.Util;
+import bguspl.set.VirtualClock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Plays a recorded game (see GameLog) again on the calling thread: the dealer deals from the recorded seed, and the
+ * recorded actions run in the recorded order, each at its recorded game time. Every action runs the same dealer and
+ * table code it ran in the recorded game, so a replay goes through the same slow paths, with no threads to schedule.
+ */
+public class GameReplay {
+
+    /**
+     * The game clock, moved forward to each action as it runs.
+     */
+    private final VirtualClock clock;
+
+    /**
+     * Game entities.
+     */
+    private final Dealer dealer;
+    private final Player[] players;
+
+    /**
+     * The recorded actions, and the final scores of the recorded game.
+     */
+    private final List<Action> actions = new ArrayList<>();
+    private final String recordedScores;
+
+    /**
+     * @param file - the recorded game (played with the same configuration).
+     * @throws IllegalArgumentException - if the file is not a recorded game.
+     */
+    public GameReplay(Logger logger, Config config, Util util, Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if (lines.size() < 2 || !lines.get(0).startsWith("seed ") || !lines.get(lines.size() - 1).startsWith("scores "))
+            throw new IllegalArgumentException("not a recorded game: " + file);
+        long seed = Long.parseLong(lines.get(0).substring("seed ".length()));
+        for (String line : lines.subList(1, lines.size() - 1))
+            actions.add(new Action(line.split(" ")));
+        recordedScores = lines.get(lines.size() - 1).substring("scores ".length());
+
+        this.clock = new VirtualClock(actions.isEmpty() ? 0 : actions.get(0).time);
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), util, clock, seed);
+        this.players = new Player[config.players];
+        Table table = new Table(env);
+        this.dealer = new Dealer(env, table, players, env.random(0), true);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+    }
+
+    /**
+     * Plays the recorded actions to the end of the game.
+     */
+    public void run() {
+        for (Action action : actions) {
+            clock.advanceTo(action.time);
+            switch (action.type) {
+                case "D":
+                    dealer.startRound();
+                    break;
+                case "E":
+                    dealer.endRound();
+                    break;
+                case "T":
+                    players[action.player].toggleToken(action.slot);
+                    break;
+                case "C":
+                    dealer.queueClaim(action.player);
+                    break;
+                case "P":
+                    dealer.checkClaims();
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown recorded action: " + action.type);
+            }
+        }
+        dealer.announceWinners();
+    }
+
+    /**
+     * @return - the number of recorded actions.
+     */
+    public int actionCount() {
+        return actions.size();
+    }
+
+    /**
+     * @return - the scores of the players in the replay, separated by spaces.
+     */
+    public String scores() {
+        return GameLog.scores(players);
+    }
+
+    /**
+     * @return - the final scores of the players in the recorded game, separated by spaces.
+     */
+    public String recordedScores() {
+        return recordedScores;
+    }
+
+    /**
+     * A recorded action: its game time, its type, and the player and slot it applies to (if any).
+     */
+    private static class Action {
+        final long time;
+        final String type;
+        final int player;
+        final int slot;
+
+        Action(String[] fields) {
+            time = Long.parseLong(fields[0]);
+            type = fields[1];
+            player = fields.length > 2 ? Integer.parseInt(fields[2]) : -1;
+            slot = fields.length > 3 ? Integer.parseInt(fields[3]) : -1;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.swing.ViewportLayout;
 
@@ -41,14 +43,14 @@ public class Player implements Runnable {
     private Thread playerThread;
 
     /**
-     * The thread of the AI (computer) player (an additional thread used to generate key presses).
+     * True iff the player is human (not a computer player).
      */
-    private Thread aiThread;
+    private final boolean human;
 
     /**
-     * True iff the player is human (not a computer player).
+     * How the AI chooses its key presses (null for a human player).
      */
-    private final boolean human;
+    private final AiStrategy strategy;
 
     /**
      * True iff game should be terminated.
@@ -65,7 +67,14 @@ public class Player implements Runnable {
      */
     private volatile int nextSlot;
 
-    private long freezeUntil;
+    /**
+     * Guards the handoff of a key press to the player thread, and signals when nextSlot changes. It is a lock rather
+     * than the player's monitor, so a virtual thread waiting on it does not pin the platform thread that carries it.
+     */
+    private final ReentrantLock keyLock = new ReentrantLock();
+    private final Condition nextSlotChanged = keyLock.newCondition();
+
+    private volatile long freezeUntil;
 
     private boolean penalized;
 
@@ -84,8 +93,9 @@ public class Player implements Runnable {
         this.table = table;
         this.id = id;
         this.human = human;
+        this.strategy = human ? null : AiStrategy.create(env, table, id);
         this.nextSlot = -1;
-        this.freezeUntil = System.currentTimeMillis();
+        this.freezeUntil = env.clock.currentTimeMillis();
         this.penalized = false;
     }
 
@@ -96,45 +106,72 @@ public class Player implements Runnable {
     public void run() {
         playerThread = Thread.currentThread();
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
-        if (!human) createArtificialIntelligence();
 
         while (!terminate) {
+            keyLock.lock();
+            // wait for a key press (the interrupt of terminate() may have been taken by a wait for a claim, so
+            // the flag is checked too)
+            try { while (nextSlot == -1 && !terminate) nextSlotChanged.await(); }
+            catch (InterruptedException ignored) {}
+            finally { keyLock.unlock(); }
             placeNextToken();
-            synchronized (this) {
-                try { wait(); }
-                catch (InterruptedException ignored) {}
-            }
         }
-        if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
+        // release a key press that waits for the token to be placed
+        signalNextSlotChanged();
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
-     */
-    private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
-            env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
-            Random rand = new Random();
-            while (!terminate) {
-                int keypress = rand.nextInt(env.config.tableSize);
-
-                if (table.countTokens(id) == 3) {
-                    int[] cards = table.getPlayerTokensCards(id);
-                    keypress = table.cardToSlot[cards[rand.nextInt(cards.length)]];
-                }
-                
-                keyPressed(keypress);
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException ignored) {}
-                
+     * The next action of the AI (computer) player, taken on the thread of the bot scheduler: a key press, unless the
+     * player is frozen or its thread is still busy with the last key press. It never waits, so one thread can act for
+     * any number of computer players.
+     *
+     * @param rand - the source of randomness of the AI.
+     */
+    void aiAction(Random rand) {
+        int slot = nextAiKey(rand);
+        if (slot == -1)
+            return;
+        keyLock.lock();
+        try {
+            if (nextSlot == -1) {
+                nextSlot = slot;
+                nextSlotChanged.signalAll();
             }
-            env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
-        aiThread.start();
+        } finally {
+            keyLock.unlock();
+        }
+    }
+
+    /**
+     * @return - the number of game milliseconds between two actions of the AI (Long.MAX_VALUE if it takes none).
+     */
+    long aiPeriodMillis() {
+        double rate = env.config.botActionsPerSecond[id];
+        return rate > 0 ? Math.max(1, Math.round(1000 / rate)) : Long.MAX_VALUE;
+    }
+
+    /**
+     * The AI's next key press, as its strategy chooses it.
+     *
+     * @param rand - the source of randomness for the choice.
+     * @return - the slot to press, or -1 to press nothing this time.
+     */
+    int chooseKey(Random rand) {
+        return strategy.chooseKey(rand);
+    }
+
+    /**
+     * Asks the AI for its next key press, unless the player is frozen or still busy with the last key press (then the
+     * AI is not asked, so its state and its draws from rand are the same however the player is run).
+     *
+     * @param rand - the source of randomness of the AI.
+     * @return - the slot to press, or -1 to press nothing this time.
+     */
+    int nextAiKey(Random rand) {
+        if (env.clock.currentTimeMillis() < freezeUntil || nextSlot != -1)
+            return -1;
+        return chooseKey(rand);
     }
 
     /**
@@ -142,7 +179,9 @@ public class Player implements Runnable {
      */
     public void terminate() {
         terminate = true;
-        playerThread.interrupt();
+        // a player of a game that runs on one thread has no thread of its own
+        if (playerThread != null)
+            playerThread.interrupt();
     }
 
     /**
@@ -151,37 +190,77 @@ public class Player implements Runnable {
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        if (System.currentTimeMillis() >= freezeUntil) {
+        if (env.clock.currentTimeMillis() >= freezeUntil) {
             // if the player is not frozen due to point or penalty
-            nextSlot = slot;
+            keyLock.lock();
             try {
-                synchronized (this) { 
-                    // wakes the playerThread up (to place the token)
-                    notify();
-                    // wait for the playerThread to finish placing the token
-                    wait(); 
-                }
-            } catch (InterruptedException ignored) {}
+                // wakes the playerThread up (to place the token)
+                nextSlot = slot;
+                nextSlotChanged.signalAll();
+                // wait for the playerThread to finish placing the token (unless it is done with the game)
+                while (nextSlot != -1 && !terminate) nextSlotChanged.await();
+            } catch (InterruptedException ignored) {
+            } finally {
+                keyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Handles a key press on the calling thread, for a game that runs all its players on one thread (see
+     * EventSimulation): the token is placed (and a set claimed) before this returns.
+     *
+     * @param slot - the slot corresponding to the key pressed.
+     */
+    void pressKeyInline(int slot) {
+        if (env.clock.currentTimeMillis() >= freezeUntil) {
+            nextSlot = slot;
+            placeNextToken();
         }
     }
 
     private void placeNextToken() {
         if (nextSlot != -1) {
-            if(!table.removeToken(id, nextSlot))
-                if (table.countTokens(id) < 3)
-                    table.placeToken(id, nextSlot);
+            int slot = nextSlot;
+            GameLog log = dealer.log();
+            if (log == null)
+                toggleToken(slot);
+            else
+                log.record("T " + id + " " + slot, () -> toggleToken(slot));
 
-            // after placing token - there are 3 tokens
+            // after placing token - there are 3 tokens (claim them until the claim is checked or the game is over)
             while (table.countTokens(id) == 3 && !penalized)
-                dealer.addClaim(id);
+                if (!dealer.addClaim(id))
+                    break;
             
             penalized = false;
             
             // less than 3 tokens or penalized - notify the keypresses thread to accept keypresses
-            synchronized(this) { notify(); }
+            nextSlot = -1;
+            signalNextSlotChanged();
         }
     }
 
+    private void signalNextSlotChanged() {
+        keyLock.lock();
+        try {
+            nextSlotChanged.signalAll();
+        } finally {
+            keyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the player's token from a slot, or places one there if it has none and less than 3 tokens.
+     *
+     * @param slot - the slot of the token.
+     */
+    void toggleToken(int slot) {
+        if (!table.removeToken(id, slot))
+            if (table.countTokens(id) < 3)
+                table.placeToken(id, slot);
+    }
+
     /**
      * Award a point to a player and perform other related actions.
      *
@@ -189,7 +268,7 @@ public class Player implements Runnable {
      * @post - the player's score is updated in the ui.
      */
     public void point() {
-        freezeUntil = System.currentTimeMillis() + env.config.pointFreezeMillis;
+        freezeUntil = env.clock.currentTimeMillis() + env.config.pointFreezeMillis;
         env.ui.setScore(id, ++score);
     }
 
@@ -197,10 +276,17 @@ public class Player implements Runnable {
      * Penalize a player and perform other related actions.
      */
     public void penalty() {
-        freezeUntil = System.currentTimeMillis() + env.config.penaltyFreezeMillis;
+        freezeUntil = env.clock.currentTimeMillis() + env.config.penaltyFreezeMillis;
         penalized = true;
     }
 
+    /**
+     * @return - true iff the player is human (not a computer player).
+     */
+    public boolean isHuman() {
+        return human;
+    }
+
     public int score() {
         return score;
     }
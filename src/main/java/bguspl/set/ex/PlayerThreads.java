@@ -0,0 +1,67 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads of the players: platform threads, or virtual threads when config.playerThreads is
+ * "virtual". Virtual threads are cheap to create and to block, so a game can have tens of thousands of bots. They need
+ * Java 21 or later, and the game is built for Java 8, so they are created by reflection (and when the Java runtime
+ * has none, platform threads are created instead).
+ */
+final class PlayerThreads {
+
+    /**
+     * Thread.ofVirtual() and Thread.Builder.unstarted(Runnable), or null if the Java runtime has no virtual threads.
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null, unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+            // a preview of them may be there but disabled (Java 19 and 20)
+            unstarted.invoke(ofVirtual.invoke(null), (Runnable) () -> {});
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = unstarted = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        UNSTARTED = unstarted;
+    }
+
+    private PlayerThreads() {}
+
+    /**
+     * @return - true iff the Java runtime has virtual threads.
+     */
+    static boolean virtualAvailable() {
+        return UNSTARTED != null;
+    }
+
+    /**
+     * Creates a thread (without starting it).
+     *
+     * @param env  - the game environment object.
+     * @param task - the task the thread runs.
+     * @param name - the name of the thread.
+     * @return - a virtual thread if the game runs its players on virtual threads (and they are available), or a
+     *           platform thread otherwise.
+     */
+    static Thread newThread(Env env, Runnable task, String name) {
+        Thread thread = null;
+        if (env.config.playerThreads.equals("virtual") && virtualAvailable()) {
+            try {
+                thread = (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), task);
+            } catch (ReflectiveOperationException e) {
+                env.logger.warning("error creating a virtual thread: " + e + " (creating a platform thread)");
+            }
+        }
+        if (thread == null)
+            thread = new Thread(task);
+        thread.setName(name);
+        return thread;
+    }
+}
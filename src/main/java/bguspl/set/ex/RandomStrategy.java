@@ -0,0 +1,35 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Random;
+
+/**
+ * Presses random slots, and once all 3 tokens of the player are placed, random slots among them (so it keeps claiming
+ * the cards under its tokens until it removes one of them). Most of its claims are not sets.
+ */
+class RandomStrategy implements AiStrategy {
+
+    private final Env env;
+    private final Table table;
+    private final int player;
+
+    RandomStrategy(Env env, Table table, int player) {
+        this.env = env;
+        this.table = table;
+        this.player = player;
+    }
+
+    @Override
+    public int chooseKey(Random random) {
+        int keypress = random.nextInt(env.config.tableSize);
+
+        // a consistent view of the table (the dealer may be replacing the cards under our tokens)
+        TableSnapshot snapshot = table.snapshot();
+        if (snapshot.countTokens(player) == 3) {
+            int[] slots = snapshot.tokenSlots(player);
+            keypress = slots[random.nextInt(slots.length)];
+        }
+        return keypress;
+    }
+}
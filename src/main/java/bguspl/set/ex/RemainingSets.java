@@ -0,0 +1,81 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.stream.IntStream;
+
+/**
+ * This class tracks the number of legal sets that can still be formed from the cards left in the game (in the
+ * deck or on the table).
+ *
+ * @inv count() == the number of legal sets among the first size cards
+ */
+class RemainingSets {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The cards left in the game (only the first size entries are valid).
+     */
+    private final int[] cards;
+
+    /**
+     * Mapping between a card and its index in cards (-1 if it left the game).
+     */
+    private final int[] cardToIndex;
+
+    /**
+     * The number of cards left in the game.
+     */
+    private int size;
+
+    /**
+     * The number of legal sets among the cards left in the game.
+     */
+    private int count;
+
+    RemainingSets(Env env) {
+        this.env = env;
+        cards = IntStream.range(0, env.config.deckSize).toArray();
+        cardToIndex = IntStream.range(0, env.config.deckSize).toArray();
+        size = cards.length;
+        count = env.util.countSets(cards, size);
+    }
+
+    /**
+     * Takes a card out of the game.
+     *
+     * @param card - the card that left the game (e.g. after being collected as part of a legal set).
+     *
+     * @post - count() does not include the sets that contained the card.
+     */
+    void remove(int card) {
+        int index = cardToIndex[card];
+        if (index == -1) return;
+
+        // swap the last card into the removed card's place
+        int last = cards[--size];
+        cards[index] = last;
+        cardToIndex[last] = index;
+        cardToIndex[card] = -1;
+
+        count -= env.util.findSetsWith(card, cards, size, Integer.MAX_VALUE).size();
+    }
+
+    /**
+     * @return - true iff a legal set can still be formed from the cards left in the game.
+     */
+    boolean hasSet() {
+        return count > 0;
+    }
+
+    /**
+     * @return - the number of legal sets that can still be formed from the cards left in the game.
+     */
+    int count() {
+        return count;
+    }
+}
@@ -0,0 +1,95 @@
+package bguspl.set.ex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds the legal sets that are currently on the table, indexed by the slots they occupy.
+ *
+ * @inv count() == the number of distinct sets in all the slots lists
+ */
+class SetIndex {
+
+    /**
+     * For each slot, the sets (as sorted arrays of slots) that contain it. The lists are never modified once
+     * stored, so they can be handed out to readers as they are.
+     */
+    private final List<List<int[]>> slotSets;
+
+    /**
+     * The number of sets on the table.
+     */
+    private int count;
+
+    SetIndex(int tableSize) {
+        slotSets = new ArrayList<>(tableSize);
+        for (int slot = 0; slot < tableSize; slot++)
+            slotSets.add(Collections.emptyList());
+    }
+
+    /**
+     * Adds a set to the index.
+     *
+     * @param slots - the sorted slots of the set's cards.
+     */
+    synchronized void add(int[] slots) {
+        for (int slot : slots) {
+            List<int[]> sets = new ArrayList<>(slotSets.get(slot));
+            sets.add(slots);
+            slotSets.set(slot, Collections.unmodifiableList(sets));
+        }
+        count++;
+    }
+
+    /**
+     * Removes all the sets that contain a slot from the index.
+     *
+     * @param slot - the slot whose card is removed from the table.
+     */
+    synchronized void remove(int slot) {
+        List<int[]> removed = slotSets.get(slot);
+        for (int[] set : removed)
+            for (int other : set)
+                if (other != slot) {
+                    List<int[]> sets = new ArrayList<>(slotSets.get(other));
+                    sets.remove(set);
+                    slotSets.set(other, Collections.unmodifiableList(sets));
+                }
+        slotSets.set(slot, Collections.emptyList());
+        count -= removed.size();
+    }
+
+    /**
+     * Removes all the sets from the index.
+     */
+    synchronized void clear() {
+        for (int slot = 0; slot < slotSets.size(); slot++)
+            slotSets.set(slot, Collections.emptyList());
+        count = 0;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param slot - a slot on the table.
+     * @return     - the sets that contain the slot (an unmodifiable list).
+     */
+    synchronized List<int[]> containing(int slot) {
+        return slotSets.get(slot);
+    }
+
+    /**
+     * @return - all the sets in the index, each one listed once.
+     */
+    synchronized List<int[]> all() {
+        List<int[]> all = new ArrayList<>(count);
+        for (int slot = 0; slot < slotSets.size(); slot++)
+            for (int[] set : slotSets.get(slot))
+                if (set[0] == slot)
+                    all.add(set);
+        return all;
+    }
+}
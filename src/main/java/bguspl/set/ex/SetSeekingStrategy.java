@@ -0,0 +1,148 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Goes for a legal set on the table and presses its slots, one at a time. The sets are read from the table's set index,
+ * so finding one costs no search. A perfect player sees a set as soon as the cards change and never errs. A human-like
+ * one takes a while to see it (a reaction time drawn from a log-normal distribution with the configured mean), and now
+ * and then takes 3 cards that are not a set for one (at the configured error rate).
+ */
+class SetSeekingStrategy implements AiStrategy {
+
+    /**
+     * The spread of the reaction times (the standard deviation of their logarithm).
+     */
+    private static final double REACTION_SIGMA = 0.5;
+
+    private final Env env;
+    private final Table table;
+    private final int player;
+
+    /**
+     * The mean time it takes the player to see a set, in milliseconds (0 to see it right away).
+     */
+    private final long meanReactionMillis;
+
+    /**
+     * The probability that the player goes for 3 cards that are not a set.
+     */
+    private final double errorRate;
+
+    /**
+     * The slots the player goes for (null if it has to look for a set), and the table version they were chosen at.
+     */
+    private int[] target;
+    private long targetVersion;
+
+    /**
+     * The game time when the player sees its target (and starts pressing its slots).
+     */
+    private long seenAt;
+
+    SetSeekingStrategy(Env env, Table table, int player, long meanReactionMillis, double errorRate) {
+        this.env = env;
+        this.table = table;
+        this.player = player;
+        this.meanReactionMillis = meanReactionMillis;
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public int chooseKey(Random random) {
+        long now = env.clock.currentTimeMillis();
+        // the cards changed since the target was chosen, so it may not be on the table anymore
+        if (target == null || table.version() != targetVersion) {
+            targetVersion = table.version();
+            target = chooseTarget(random);
+            seenAt = now + reactionMillis(random);
+        }
+        if (target == null || now < seenAt)
+            return -1;
+
+        // take back the tokens that are not on the target, then place the missing ones
+        TableSnapshot snapshot = table.snapshot();
+        for (int slot : snapshot.tokenSlots(player))
+            if (!contains(target, slot))
+                return slot;
+        for (int slot : target)
+            if (!snapshot.hasToken(player, slot)) {
+                // the last token makes the claim, and whatever its verdict, the player looks again afterwards
+                if (snapshot.countTokens(player) == target.length - 1)
+                    target = null;
+                return slot;
+            }
+        target = null;
+        return -1;
+    }
+
+    /**
+     * @return - the slots of a set on the table that keeps as many of the player's tokens as possible (or a random set
+     *           if it has none on a set), possibly mistaken for another card; null if there is no set on the table.
+     */
+    private int[] chooseTarget(Random random) {
+        TableSnapshot snapshot = table.snapshot();
+        int[] set = null;
+        int kept = 0;
+        for (int slot : snapshot.tokenSlots(player))
+            for (int[] candidate : table.setsContaining(slot)) {
+                int candidateKept = 0;
+                for (int s : candidate)
+                    if (snapshot.hasToken(player, s))
+                        candidateKept++;
+                if (candidateKept > kept) {
+                    set = candidate;
+                    kept = candidateKept;
+                }
+            }
+
+        int size = snapshot.size();
+        for (int i = 0, start = random.nextInt(size); i < size && set == null; i++) {
+            List<int[]> sets = table.setsContaining((start + i) % size);
+            if (!sets.isEmpty())
+                set = sets.get(random.nextInt(sets.size()));
+        }
+
+        if (set != null && errorRate > 0 && random.nextDouble() < errorRate)
+            set = mistake(set, snapshot, random);
+        return set;
+    }
+
+    /**
+     * @return - the slots of a set with one of them replaced by a random slot with a card that is not in the set.
+     */
+    private static int[] mistake(int[] set, TableSnapshot snapshot, Random random) {
+        int[] others = new int[snapshot.size()];
+        int count = 0;
+        for (int slot = 0; slot < snapshot.size(); slot++)
+            if (snapshot.card(slot) != -1 && !contains(set, slot))
+                others[count++] = slot;
+        if (count == 0)
+            return set;
+
+        // the sets in the index are shared, so the mistaken one is a copy
+        int[] mistaken = set.clone();
+        mistaken[random.nextInt(mistaken.length)] = others[random.nextInt(count)];
+        return mistaken;
+    }
+
+    /**
+     * @return - a reaction time, in milliseconds: log-normally distributed with a mean of meanReactionMillis.
+     */
+    private long reactionMillis(Random random) {
+        if (meanReactionMillis <= 0)
+            return 0;
+        double gaussian = REACTION_SIGMA * random.nextGaussian() - REACTION_SIGMA * REACTION_SIGMA / 2;
+        return Math.round(meanReactionMillis * Math.exp(gaussian));
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int s : slots)
+            if (s == slot)
+                return true;
+        return false;
+    }
+}
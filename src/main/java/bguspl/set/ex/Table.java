@@ -5,7 +5,9 @@ import bguspl.set.Env;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 /**
@@ -31,11 +33,36 @@ public class Table {
     protected final Integer[] cardToSlot; // slot per card (if any)
 
     /**
-     * for each player and slot, true iff the player's token is placed on the slot
+     * For each player, a bitset of the slots the player's tokens are placed on (bit slot % 64 of word
+     * player * tokenWords + slot / 64 is set iff the token is placed). Words are only changed by compare-and-set.
      */
-    private final boolean[][] tokensMatrix;
+    private final AtomicLongArray tokens;
 
-    private boolean cantTouchMe;
+    /**
+     * The number of words in each player's bitset of tokens.
+     */
+    private final int tokenWords;
+
+    /**
+     * A lock per slot, held while the card in the slot changes and while a token is placed on it (so a token is
+     * never placed on a card that is being taken off the table).
+     */
+    private final Object[] slotLocks;
+
+    /**
+     * The legal sets among the cards currently on the table.
+     */
+    private final SetIndex sets;
+
+    /**
+     * Write-locked while the cards on the table change, so snapshots can be read optimistically (like a seqlock).
+     */
+    private final StampedLock cardsLock = new StampedLock();
+
+    /**
+     * The number of times the cards on the table changed.
+     */
+    private volatile long version;
 
     /**
      * Constructor for testing.
@@ -49,8 +76,20 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        this.tokensMatrix=new boolean[env.config.players][12];
-        this.cantTouchMe = true;
+        this.tokenWords = (slotToCard.length + 63) / 64;
+        this.tokens = new AtomicLongArray(env.config.players * tokenWords);
+        this.slotLocks = new Object[slotToCard.length];
+        for (int slot = 0; slot < slotLocks.length; slot++)
+            slotLocks[slot] = new Object();
+        this.sets = new SetIndex(slotToCard.length);
+        boolean[] pending = new boolean[slotToCard.length];
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            pending[slot] = slotToCard[slot] != null;
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] != null) {
+                pending[slot] = false;
+                indexSets(slot, pending);
+            }
     }
 
     /**
@@ -63,46 +102,124 @@ public class Table {
         this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
     }
 
-    public void lockTable() {
-        this.cantTouchMe = true;
-    }
-
-    public void unlockTable() {
-        this.cantTouchMe = false;
-    }
-
     /*
      * Retrieves the cards which the player placed his tokens upon
      */
     public int[] getPlayerTokensCards(int playerId) {
+        // read each word once, so the count and the cards agree
+        long[] words = new long[tokenWords];
         int count = 0;
-        for (int i = 0; i < tokensMatrix[playerId].length; i++)
-            if (tokensMatrix[playerId][i])
-                count++;
-        
+        for (int i = 0; i < tokenWords; i++) {
+            words[i] = tokens.get(playerId * tokenWords + i);
+            count += Long.bitCount(words[i]);
+        }
+
         int[] cards = new int[count];
         int j = 0;
-        for (int i = 0; i < tokensMatrix[playerId].length; i++)
-            if (tokensMatrix[playerId][i]){
-                cards[j] = slotToCard[i];
-                j++;
-            }
-        
+        for (int i = 0; i < tokenWords; i++)
+            for (long word = words[i]; word != 0; word &= word - 1)
+                cards[j++] = slotToCard[i * 64 + Long.numberOfTrailingZeros(word)];
+
         return cards;
     }
 
     /**
-     * This method prints all possible legal sets of cards that are currently on the table.
+     * @return - the number of times the cards on the table changed (readers can skip work if it did not change).
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Takes a consistent snapshot of the cards and tokens on the table. Never blocks the dealer: the cards and tokens
+     * are copied optimistically and the copy is retried if the cards changed in the meantime.
+     *
+     * @return - an immutable view of the table.
+     */
+    public TableSnapshot snapshot() {
+        int[] cards = new int[slotToCard.length];
+        long[] tokensCopy = new long[tokens.length()];
+        long snapshotVersion;
+        long stamp;
+        do {
+            stamp = cardsLock.tryOptimisticRead();
+            snapshotVersion = version;
+            for (int slot = 0; slot < cards.length; slot++) {
+                Integer card = slotToCard[slot];
+                cards[slot] = card == null ? -1 : card;
+            }
+            // tokens are only placed on cards, so a token read here is on the card copied above unless the cards
+            // changed in between (and then the copy is retried)
+            for (int i = 0; i < tokensCopy.length; i++)
+                tokensCopy[i] = tokens.get(i);
+        } while (!cardsLock.validate(stamp));
+
+        // tokens are only kept on slots that have a card (the dealer removes them right after the card)
+        long[] occupied = new long[tokenWords];
+        for (int slot = 0; slot < cards.length; slot++)
+            if (cards[slot] != -1)
+                occupied[slot / 64] |= 1L << slot;
+        for (int i = 0; i < tokensCopy.length; i++)
+            tokensCopy[i] &= occupied[i % tokenWords];
+
+        return new TableSnapshot(snapshotVersion, cards, tokensCopy, tokenWords);
+    }
+
+    /**
+     * This method logs all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        if (!env.logger.isLoggable(Level.INFO))
+            return;
+        sets.all().forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
-            int[][] features = env.util.cardsToFeatures(set);
+            List<Integer> slots = Arrays.stream(set).boxed().collect(Collectors.toList());
+            int[][] features = env.util.cardsToFeatures(Arrays.stream(set).map(slot -> slotToCard[slot]).toArray());
+            env.logger.info(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)).toString());
         });
     }
 
+    /**
+     * @return - true iff there is a legal set among the cards on the table.
+     */
+    public boolean hasSet() {
+        return sets.count() > 0;
+    }
+
+    /**
+     * @return - the number of legal sets among the cards on the table.
+     */
+    public int setCount() {
+        return sets.count();
+    }
+
+    /**
+     * @param slot - a slot on the table.
+     * @return     - the legal sets (as sorted arrays of slots) that contain the card in the slot.
+     */
+    public List<int[]> setsContaining(int slot) {
+        return sets.containing(slot);
+    }
+
+    /**
+     * Adds the sets that the card in a slot forms with the cards in other slots to the set index.
+     *
+     * @param slot    - the slot of the card to index.
+     * @param pending - the slots whose cards are not indexed yet (and are not considered), or null if none.
+     */
+    private void indexSets(int slot, boolean[] pending) {
+        int[] others = new int[slotToCard.length];
+        int length = 0;
+        for (int other = 0; other < slotToCard.length; other++)
+            if (other != slot && slotToCard[other] != null && (pending == null || !pending[other]))
+                others[length++] = slotToCard[other];
+
+        for (int[] set : env.util.findSetsWith(slotToCard[slot], others, length, Integer.MAX_VALUE)) {
+            int[] slots = Arrays.stream(set).map(card -> cardToSlot[card]).sorted().toArray();
+            sets.add(slots);
+        }
+    }
+
     /**
      * Count the number of cards currently on the table.
      *
@@ -124,9 +241,8 @@ public class Table {
     public int countTokens(int playerId) {
         int count = 0;
 
-        for (int slot = 0; slot < tokensMatrix[playerId].length; slot++)
-            if (tokensMatrix[playerId][slot])
-                count++;
+        for (int i = 0; i < tokenWords; i++)
+            count += Long.bitCount(tokens.get(playerId * tokenWords + i));
 
         return count;
     }
@@ -139,14 +255,42 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
+        placeCards(new int[]{card}, new int[]{slot});
+    }
+
+    /**
+     * Places cards on the table in grid slots, all in one change (snapshots see either none or all of them).
+     * Showing the cards on the screen is left to the user interface, which may animate it.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed (respectively).
+     *
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] slots) {
+        boolean[] pending = new boolean[slotToCard.length];
+        for (int slot : slots) {
+            if (slotToCard[slot] != null)
+                sets.remove(slot);
+            pending[slot] = true;
+        }
+
+        long stamp = cardsLock.writeLock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+            for (int i = 0; i < slots.length; i++)
+                setSlotCard(slots[i], cards[i]);
+            version++;
+        } finally {
+            cardsLock.unlockWrite(stamp);
+        }
 
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
+        // index the new cards one by one, each with the cards indexed before it (so every set is added once)
+        for (int slot : slots) {
+            pending[slot] = false;
+            indexSets(slot, pending);
+        }
 
-        env.ui.placeCard(card, slot);
+        for (int i = 0; i < slots.length; i++)
+            env.ui.placeCard(cards[i], slots[i]);
     }
 
     /**
@@ -155,28 +299,81 @@ public class Table {
      */
     public void removeCard(int slot) {
         if (slotToCard[slot] != null) {
-            try {
-                Thread.sleep(env.config.tableDelayMillis);
-            } catch (InterruptedException ignored) {}
-
             // take the card off the table (so no other player can place tokens on it)
-            cardToSlot[slotToCard[slot]] = null;
-            slotToCard[slot] = null;
+            sets.remove(slot);
+            long stamp = cardsLock.writeLock();
+            try {
+                setSlotCard(slot, null);
+                version++;
+            } finally {
+                cardsLock.unlockWrite(stamp);
+            }
 
             env.ui.removeCard(slot);
         }
     }
 
+    /**
+     * Removes all the cards and all the tokens from the table, all in one change.
+     *
+     * @return - the cards that were on the table.
+     */
+    public int[] clearTable() {
+        int[] cards = new int[slotToCard.length];
+        int[] slots = new int[slotToCard.length];
+        int count = 0;
+
+        long stamp = cardsLock.writeLock();
+        try {
+            for (int slot = 0; slot < slotToCard.length; slot++)
+                if (slotToCard[slot] != null) {
+                    cards[count] = slotToCard[slot];
+                    slots[count++] = slot;
+                    setSlotCard(slot, null);
+                }
+            version++;
+        } finally {
+            cardsLock.unlockWrite(stamp);
+        }
+
+        // no token can be placed once the cards are gone, so the tokens can be cleared after them
+        for (int i = 0; i < tokens.length(); i++)
+            tokens.set(i, 0);
+        sets.clear();
+
+        env.ui.removeTokens();
+        for (int i = 0; i < count; i++)
+            env.ui.removeCard(slots[i]);
+        return Arrays.copyOf(cards, count);
+    }
+
+    /**
+     * Changes the card in a slot, holding the slot's lock (the caller holds the write lock of the cards).
+     * @param slot - the slot to change.
+     * @param card - the card to place in the slot (null to leave it empty).
+     */
+    private void setSlotCard(int slot, Integer card) {
+        synchronized (slotLocks[slot]) {
+            Integer previous = slotToCard[slot];
+            if (previous != null)
+                cardToSlot[previous] = null;
+            if (card != null)
+                cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+        }
+    }
+
     /**
      * Places a player token on a grid slot.
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
      */
     public void placeToken(int player, int slot) {
-        if(!tokensMatrix[player][slot] && slotToCard[slot] != null && !this.cantTouchMe) {
-            // there is a card present to place token upon and a token of the player was not placed already
-            tokensMatrix[player][slot]=true;
-            env.ui.placeToken(player, slot);
+        synchronized (slotLocks[slot]) {
+            if(slotToCard[slot] != null && setToken(player, slot, true)) {
+                // there is a card present to place token upon and a token of the player was not placed already
+                env.ui.placeToken(player, slot);
+            }
         }
     }
 
@@ -187,11 +384,29 @@ public class Table {
      * @return       - true iff a token was successfully removed.
      */
     public boolean removeToken(int player, int slot) {
-        if(tokensMatrix[player][slot]){
-            tokensMatrix[player][slot]=false;
+        if(setToken(player, slot, false)){
             env.ui.removeToken(player, slot);
             return true;
         }
         return false;
     }
+
+    /**
+     * Atomically places or removes a token of a player.
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot of the token.
+     * @param placed - true to place the token, false to remove it.
+     * @return       - true iff the token changed (i.e. it was not already placed/removed).
+     */
+    private boolean setToken(int player, int slot, boolean placed) {
+        int index = player * tokenWords + slot / 64;
+        long bit = 1L << slot;
+        long word;
+        do {
+            word = tokens.get(index);
+            if (((word & bit) != 0) == placed)
+                return false;
+        } while (!tokens.compareAndSet(index, word, word ^ bit));
+        return true;
+    }
 }
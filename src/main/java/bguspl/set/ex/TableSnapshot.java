@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+/**
+ * An immutable, consistent view of the cards and tokens on the table at some version (see Table.snapshot).
+ */
+public final class TableSnapshot {
+
+    /**
+     * The version of the table's cards this snapshot was taken at.
+     */
+    public final long version;
+
+    /**
+     * Mapping between a slot and the card placed in it (-1 if none).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * The players' bitsets of tokens (see Table.tokens), only including slots that have a card in this snapshot.
+     */
+    private final long[] tokens;
+
+    /**
+     * The number of words in each player's bitset of tokens.
+     */
+    private final int tokenWords;
+
+    TableSnapshot(long version, int[] slotToCard, long[] tokens, int tokenWords) {
+        this.version = version;
+        this.slotToCard = slotToCard;
+        this.tokens = tokens;
+        this.tokenWords = tokenWords;
+    }
+
+    /**
+     * @return - the number of slots on the table.
+     */
+    public int size() {
+        return slotToCard.length;
+    }
+
+    /**
+     * @param slot - a slot on the table.
+     * @return     - the card in the slot, or -1 if the slot is empty.
+     */
+    public int card(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * @param player - a player id.
+     * @param slot   - a slot on the table.
+     * @return       - true iff the player's token is placed on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (tokens[player * tokenWords + slot / 64] & (1L << slot)) != 0;
+    }
+
+    /**
+     * @param player - a player id.
+     * @return       - the number of tokens the player has placed on the table.
+     */
+    public int countTokens(int player) {
+        int count = 0;
+        for (int i = 0; i < tokenWords; i++)
+            count += Long.bitCount(tokens[player * tokenWords + i]);
+        return count;
+    }
+
+    /**
+     * @param player - a player id.
+     * @return       - the slots the player's tokens are placed on, in increasing order.
+     */
+    public int[] tokenSlots(int player) {
+        int[] slots = new int[countTokens(player)];
+        int j = 0;
+        for (int i = 0; i < tokenWords; i++)
+            for (long word = tokens[player * tokenWords + i]; word != 0; word &= word - 1)
+                slots[j++] = i * 64 + Long.numberOfTrailingZeros(word);
+        return slots;
+    }
+}
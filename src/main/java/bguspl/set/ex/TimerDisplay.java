@@ -0,0 +1,135 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+
+/**
+ * This class refreshes the countdown and the players' freeze timers on the screen from a thread of its own.
+ * It ticks at the configured frame rate while some timer is running, pushes to the user interface only the values
+ * that look different on the screen, and waits without ticking when no timer is running.
+ */
+class TimerDisplay implements Runnable {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The players whose freeze timers are displayed.
+     */
+    private final Player[] players;
+
+    /**
+     * The number of milliseconds between two ticks.
+     */
+    private final long frameMillis;
+
+    /**
+     * The time when the countdown runs out (Long.MAX_VALUE before it is first set).
+     */
+    private long reshuffleTime = Long.MAX_VALUE;
+
+    /**
+     * The countdown value on the screen (in the units it is shown in), and whether it is shown as a warning.
+     */
+    private long shownCountdown = -1;
+    private boolean shownWarn;
+
+    /**
+     * The freeze value on the screen for each player, in seconds (-1 if the player is shown as not frozen).
+     */
+    private final long[] shownFreeze;
+
+    /**
+     * True iff the display should stop.
+     */
+    private volatile boolean terminate;
+
+    TimerDisplay(Env env, Player[] players) {
+        this.env = env;
+        this.players = players;
+        this.frameMillis = Math.max(1, 1000 / env.config.displayFrameRate);
+        this.shownFreeze = new long[players.length];
+        Arrays.fill(shownFreeze, -1);
+    }
+
+    /**
+     * The display thread starts here.
+     */
+    @Override
+    public void run() {
+        try {
+            synchronized (this) {
+                while (!terminate) {
+                    if (refresh())
+                        wait(frameMillis);
+                    else
+                        wait();
+                }
+            }
+        } catch (InterruptedException ignored) {}
+    }
+
+    /**
+     * Restarts the countdown.
+     *
+     * @param reshuffleTime - the time when the countdown runs out.
+     */
+    public synchronized void resetCountdown(long reshuffleTime) {
+        this.reshuffleTime = reshuffleTime;
+        shownCountdown = -1;
+        notifyAll();
+    }
+
+    /**
+     * Wakes the display up, e.g. after a player got frozen.
+     */
+    public synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * Stops the display thread.
+     */
+    public synchronized void terminate() {
+        terminate = true;
+        notifyAll();
+    }
+
+    /**
+     * Pushes the timers that changed on the screen since the last refresh.
+     *
+     * @return - true iff some timer is still running.
+     */
+    private boolean refresh() {
+        long now = env.clock.currentTimeMillis();
+        boolean running = false;
+
+        if (reshuffleTime != Long.MAX_VALUE) {
+            long remaining = Math.max(reshuffleTime - now, 0);
+            boolean warn = remaining < env.config.turnTimeoutWarningMillis;
+            // the countdown is shown in hundredths of a second while warning, and in whole seconds otherwise
+            long shown = warn ? remaining / 10 : remaining / 1000;
+            if (shown != shownCountdown || warn != shownWarn) {
+                env.ui.setCountdown(remaining, warn);
+                shownCountdown = shown;
+                shownWarn = warn;
+            }
+            running = remaining > 0;
+        }
+
+        for (Player p : players) {
+            long remaining = p.getFreezeUntil() - now;
+            long shown = remaining > 0 ? remaining / 1000 : -1;
+            if (shown != shownFreeze[p.id]) {
+                env.ui.setFreeze(p.id, Math.max(remaining, 0));
+                shownFreeze[p.id] = shown;
+            }
+            running |= remaining > 0;
+        }
+
+        return running;
+    }
+}
@@ -0,0 +1,75 @@
+package bguspl.set;
+
+import bguspl.set.ex.EventSimulation;
+import bguspl.set.ex.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSessionTest {
+
+    @Test
+    void close_StopsGameBeforeTurnTimeout() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "1");
+        properties.put("ComputerPlayers", "0");
+        properties.put("TurnTimeoutSeconds", "60");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), new UtilImpl(config));
+        GameSession game = new GameSession(0, env, new Player[config.players]);
+        game.start();
+        // let the dealer deal and go to sleep until the end of the turn
+        Thread.sleep(200);
+
+        long start = System.currentTimeMillis();
+        game.close();
+        while (!game.isFinished() && System.currentTimeMillis() - start < 5000)
+            Thread.sleep(10);
+
+        assertTrue(game.isFinished(), "the game should stop right after it is closed");
+        assertTrue(game.isClosed());
+    }
+
+    @Test
+    void claimCounts_AgreeWithEventSimulation() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "4");
+        properties.put("BotStrategies", "perfect");
+        properties.put("TurnTimeoutSeconds", "2");
+        properties.put("PointFreezeSeconds", "0.01");
+        properties.put("PenaltyFreezeSeconds", "0.01");
+        properties.put("EndGamePauseSeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+
+        // four perfect bots race for the same sets, so many claims lose their tokens before they are checked
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), util, new ScaledClock(20), 5);
+        GameSession threads = new GameSession(0, env, new Player[config.players]);
+        threads.start();
+        threads.awaitTermination();
+        EventSimulation events = new EventSimulation(logger, config, util, 5);
+        events.run();
+
+        // every valid claim scores, and the valid share is over the claims checked (so a perfect bot is always right,
+        // but for the rare claim made on a card that was replaced in the meantime)
+        assertTrue(threads.claimCount() > 0);
+        assertEquals(threads.setsCollected(), threads.validClaimCount());
+        assertTrue(threads.validClaimCount() >= threads.claimCount() * 0.95);
+        assertTrue(events.claimCount() > 0);
+        assertEquals(events.setsCollected(), events.validClaimCount());
+        assertEquals(events.claimCount(), events.validClaimCount());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
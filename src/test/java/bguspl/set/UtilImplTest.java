@@ -0,0 +1,283 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    /**
+     * The deck shapes tested, as {featureSize, featureCount}.
+     */
+    private static final int[][] SHAPES = {{3, 3}, {3, 4}, {4, 3}, {4, 4}};
+
+    /**
+     * The number of cards searched in each shape (a random part of the deck, small enough to brute force).
+     */
+    private static final int SAMPLE = 48;
+
+    private Config config;
+    private UtilImpl util;
+    private final Random random = new Random(1);
+
+    private void forEachShape(Properties extra, Consumer<int[]> test) {
+        for (int[] shape : SHAPES) {
+            Properties properties = new Properties();
+            properties.put("FeatureSize", String.valueOf(shape[0]));
+            properties.put("FeatureCount", String.valueOf(shape[1]));
+            properties.putAll(extra);
+            config = new Config(new MockLogger(), properties);
+            util = new UtilImpl(config);
+            test.accept(shape);
+        }
+    }
+
+    private void forEachShape(Consumer<int[]> test) {
+        forEachShape(new Properties(), test);
+    }
+
+    @Test
+    void testSet_MatchesBruteForce() {
+        forEachShape(shape -> {
+            int[] cards = sample(SAMPLE);
+            for (int[] combination : combinations(cards, config.featureSize))
+                assertEquals(isSet(combination), util.testSet(combination), Arrays.toString(combination));
+        });
+    }
+
+    @Test
+    void completeSet_MatchesBruteForce() {
+        forEachShape(shape -> {
+            for (int[] partial : combinations(sample(12), config.featureSize - 1)) {
+                int expected = -1;
+                int[] candidate = Arrays.copyOf(partial, config.featureSize);
+                for (int card = 0; card < config.deckSize && expected == -1; card++) {
+                    candidate[partial.length] = card;
+                    if (!contains(partial, card) && isSet(candidate))
+                        expected = card;
+                }
+                assertEquals(expected, util.completeSet(partial), Arrays.toString(partial));
+            }
+        });
+    }
+
+    @Test
+    void findSets_FindsAllSets() {
+        forEachShape(shape -> {
+            int[] cards = sample(SAMPLE);
+            List<int[]> expected = bruteForceSets(cards);
+            List<int[]> sets = sorted(util.findSets(cards, cards.length, Integer.MAX_VALUE));
+
+            assertEquals(expected.size(), sets.size());
+            for (int i = 0; i < sets.size(); i++)
+                assertArrayEquals(expected.get(i), sets.get(i));
+            assertEquals(expected.size(), util.countSets(cards, cards.length));
+        });
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+        forEachShape(shape -> {
+            int[] cards = sample(SAMPLE);
+            int total = bruteForceSets(cards).size();
+            assertTrue(total > 2, "the sample should have a few sets");
+            for (int count : new int[]{0, 1, 2, total / 2, total, total + 1}) {
+                List<int[]> sets = util.findSets(cards, cards.length, count);
+                assertEquals(Math.min(count, total), sets.size());
+                for (int[] set : sets)
+                    assertTrue(isSet(set));
+            }
+        });
+    }
+
+    @Test
+    void findSets_SearchesOnlyLength() {
+        forEachShape(shape -> {
+            int[] cards = sample(SAMPLE);
+            int length = SAMPLE / 2;
+            assertEquals(bruteForceSets(Arrays.copyOf(cards, length)).size(),
+                    util.findSets(cards, length, Integer.MAX_VALUE).size());
+        });
+    }
+
+    @Test
+    void findSets_ParallelMatchesSerial() {
+        Properties parallel = new Properties();
+        parallel.put("ParallelSearchThreshold", "1");
+        forEachShape(parallel, shape -> {
+            int[] cards = sample(SAMPLE);
+            List<int[]> expected = bruteForceSets(cards);
+            List<int[]> sets = sorted(util.findSets(cards, cards.length, Integer.MAX_VALUE));
+
+            assertEquals(expected.size(), sets.size());
+            for (int i = 0; i < sets.size(); i++)
+                assertArrayEquals(expected.get(i), sets.get(i));
+            int total = expected.size();
+            for (int count : new int[]{0, 1, 2, total / 2, total, total + 1}) {
+                List<int[]> limited = util.findSets(cards, cards.length, count);
+                assertEquals(Math.min(count, total), limited.size());
+                for (int[] set : limited)
+                    assertTrue(isSet(set));
+            }
+        });
+    }
+
+    @Test
+    void streamSets_FindsAllSets() {
+        forEachShape(shape -> {
+            int[] cards = sample(SAMPLE);
+            List<Integer> deck = toList(cards);
+            List<int[]> expected = bruteForceSets(cards);
+
+            assertSetsEqual(expected, sorted(util.streamSets(deck).collect(Collectors.toList())));
+            assertSetsEqual(expected, sorted(util.streamSets(deck).parallel().collect(Collectors.toList())));
+            assertEquals(Math.min(2, expected.size()), util.streamSets(deck).limit(2).count());
+        });
+    }
+
+    @Test
+    void forEachSet_VisitsAllSetsUntilStopped() {
+        forEachShape(shape -> {
+            int[] cards = sample(SAMPLE);
+            List<Integer> deck = toList(cards);
+            List<int[]> expected = bruteForceSets(cards);
+
+            List<int[]> sets = new ArrayList<>();
+            util.forEachSet(deck, set -> sets.add(set.clone()));
+            assertSetsEqual(expected, sorted(sets));
+
+            int[] visits = {0};
+            util.forEachSet(deck, set -> ++visits[0] < 2);
+            assertEquals(Math.min(2, expected.size()), visits[0]);
+        });
+    }
+
+    @Test
+    void anySet_MatchesBruteForce() {
+        forEachShape(shape -> {
+            // small samples, so some have no set
+            for (int i = 0; i < 50; i++) {
+                int[] cards = sample(config.featureSize + random.nextInt(4));
+                List<Integer> deck = toList(cards);
+                int expected = bruteForceSets(cards).size();
+                assertEquals(expected > 0, util.anySet(deck), Arrays.toString(cards));
+                assertEquals(expected, util.countSets(deck), Arrays.toString(cards));
+            }
+            assertFalse(util.anySet(toList(sample(config.featureSize - 1))));
+        });
+    }
+
+    private static void assertSetsEqual(List<int[]> expected, List<int[]> sets) {
+        assertEquals(expected.size(), sets.size());
+        for (int i = 0; i < sets.size(); i++)
+            assertArrayEquals(expected.get(i), sets.get(i));
+    }
+
+    private static List<Integer> toList(int[] cards) {
+        return Arrays.stream(cards).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * @return - count distinct random cards of the deck.
+     */
+    private int[] sample(int count) {
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; card++)
+            deck.add(card);
+        Collections.shuffle(deck, random);
+        return deck.subList(0, Math.min(count, deck.size())).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return - true iff the cards form a legal set, by the rules: every feature is all the same or all different.
+     */
+    private boolean isSet(int[] cards) {
+        for (int feature = 0; feature < config.featureCount; feature++) {
+            boolean[] used = new boolean[config.featureSize];
+            int values = 0;
+            for (int card : cards) {
+                int value = (card / (int) Math.pow(config.featureSize, config.featureCount - 1 - feature)) % config.featureSize;
+                if (!used[value]) {
+                    used[value] = true;
+                    values++;
+                }
+            }
+            if (values != 1 && values != cards.length)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return - the legal sets among the cards, each one sorted, in increasing order.
+     */
+    private List<int[]> bruteForceSets(int[] cards) {
+        List<int[]> sets = new ArrayList<>();
+        for (int[] combination : combinations(cards, config.featureSize))
+            if (isSet(combination))
+                sets.add(combination);
+        return sorted(sets);
+    }
+
+    private static List<int[]> sorted(List<int[]> sets) {
+        List<int[]> sorted = new ArrayList<>();
+        for (int[] set : sets) {
+            int[] copy = set.clone();
+            Arrays.sort(copy);
+            sorted.add(copy);
+        }
+        sorted.sort((a, b) -> {
+            for (int i = 0; i < a.length; i++)
+                if (a[i] != b[i])
+                    return Integer.compare(a[i], b[i]);
+            return 0;
+        });
+        return sorted;
+    }
+
+    /**
+     * @return - every combination of size cards out of the given ones.
+     */
+    private static List<int[]> combinations(int[] cards, int size) {
+        List<int[]> combinations = new ArrayList<>();
+        combine(cards, new int[size], 0, 0, combinations);
+        return combinations;
+    }
+
+    private static void combine(int[] cards, int[] chosen, int depth, int from, List<int[]> combinations) {
+        if (depth == chosen.length) {
+            combinations.add(chosen.clone());
+            return;
+        }
+        for (int i = from; i < cards.length; i++) {
+            chosen[depth] = cards[i];
+            combine(cards, chosen, depth + 1, i + 1, combinations);
+        }
+    }
+
+    private static boolean contains(int[] cards, int card) {
+        for (int c : cards)
+            if (c == card)
+                return true;
+        return false;
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package bguspl.set.ex;
 import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
+import bguspl.set.UserInterfaceHeadless;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import bguspl.set.VirtualClock;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,11 +14,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.function.Predicate;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
@@ -23,8 +30,12 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 public class DealerTest {
     private Dealer dealer;
@@ -80,6 +91,130 @@ public class DealerTest {
         assertFalse(dealer.addClaim(1));
     }
 
+    @Test
+    void addClaim_RejectedOnceTerminated() {
+        when(table.countTokens(0)).thenReturn(3);
+        dealer.terminate();
+
+        // returns right away, with no dealer to check the claim
+        assertFalse(dealer.addClaim(0));
+    }
+
+    @Test
+    void run_ReleasesWaitingClaimsOnExit() throws InterruptedException {
+        when(table.countTokens(0)).thenReturn(3);
+        Thread claimant = new Thread(() -> dealer.addClaim(0));
+        claimant.start();
+        while (claimant.getState() != Thread.State.WAITING)
+            Thread.sleep(1);
+
+        // no set is left in the game (see MockUtil), so the dealer stops before checking any claim
+        dealer.run();
+
+        claimant.join(1000);
+        assertFalse(claimant.isAlive());
+    }
+
+    @Test
+    void checkClaims_ChecksInOrderAndDropsStaleClaims() {
+        InlineGame game = new InlineGame(new Properties());
+        Player[] players = game.players;
+        Table table = game.table;
+        Dealer dealer = game.dealer;
+        assertTrue(dealer.startRound());
+
+        // both players claim the same set, player 1 first
+        int[] set = anySet(table);
+        for (Player player : new Player[]{players[1], players[0]})
+            for (int slot : set)
+                player.toggleToken(slot);
+        long freezeUntil = players[0].getFreezeUntil();
+        dealer.queueClaim(1);
+        dealer.queueClaim(0);
+        dealer.checkClaims();
+
+        // the first claim wins the set, and the second one lost its tokens with the cards so it is dropped
+        assertEquals(1, players[1].score());
+        assertEquals(0, players[0].score());
+        assertEquals(freezeUntil, players[0].getFreezeUntil());
+        assertEquals(0, table.countTokens(0));
+
+        // a claim that is not a set is checked (and penalized) in the next batch
+        for (int slot : noSet(game.env, table))
+            players[0].toggleToken(slot);
+        dealer.queueClaim(0);
+        dealer.checkClaims();
+        assertEquals(0, players[0].score());
+        assertTrue(players[0].getFreezeUntil() > freezeUntil);
+    }
+
+    @Test
+    void deal_DrawsEachCardOnceUntilItIsReturned() {
+        Properties properties = new Properties();
+        properties.put("Seed", "3");
+        InlineGame game = new InlineGame(properties);
+        Dealer dealer = game.dealer;
+        assertTrue(dealer.startRound());
+
+        boolean reshuffled = false;
+        while (!dealer.roundOver()) {
+            if (game.ui.deck.isEmpty() && !reshuffled) {
+                // the deck ran out, so a reshuffle returns the cards on the table and deals all of them again
+                Set<Integer> onTable = game.ui.onTable();
+                dealer.endRound();
+                assertEquals(onTable, game.ui.deck);
+                assertTrue(dealer.startRound());
+                assertEquals(onTable, game.ui.onTable());
+                reshuffled = true;
+            }
+            game.collectSet(0);
+        }
+
+        assertTrue(reshuffled, "the deck should run out before the game ends");
+        assertEquals(game.env.config.deckSize, game.ui.collected.size() + game.ui.deck.size() + game.ui.onTable().size());
+    }
+
+    @Test
+    void deal_EveryPolicyDealsSetWhileOneIsLeft() {
+        for (String policy : new String[]{"random", "guaranteed", "adaptive"}) {
+            // a small table, so most random deals have no set and the policy has to make one
+            Properties properties = new Properties();
+            properties.put("Rows", "1");
+            properties.put("Columns", "4");
+            properties.put("DealingPolicy", policy);
+            InlineGame game = new InlineGame(properties);
+            assertTrue(game.dealer.startRound());
+
+            while (!game.dealer.roundOver()) {
+                assertTrue(game.table.hasSet(), policy);
+                game.collectSet(0);
+            }
+
+            // the game ends only when no set is left among the cards in the deck and on the table
+            List<Integer> left = new ArrayList<>(game.ui.deck);
+            left.addAll(game.ui.onTable());
+            assertFalse(game.env.util.anySet(left), policy);
+            assertTrue(game.ui.collected.size() > game.env.config.deckSize / 2, policy);
+        }
+    }
+
+    private static int[] anySet(Table table) {
+        for (int slot = 0; ; slot++) {
+            List<int[]> sets = table.setsContaining(slot);
+            if (!sets.isEmpty())
+                return sets.get(0);
+        }
+    }
+
+    private static int[] noSet(Env env, Table table) {
+        for (int a = 0; a < env.config.tableSize; a++)
+            for (int b = a + 1; b < env.config.tableSize; b++)
+                for (int c = b + 1; c < env.config.tableSize; c++)
+                    if (!env.util.testSet(new int[]{table.slotToCard[a], table.slotToCard[b], table.slotToCard[c]}))
+                        return new int[]{a, b, c};
+        throw new AssertionError("every three cards on the table are a set");
+    }
+
     @Test
     void terminate() {
         dealer.terminate();
@@ -88,6 +223,83 @@ public class DealerTest {
             verify(players[i]).terminate();
     }
 
+    /**
+     * A game that runs on the test thread (claims are checked when the test calls checkClaims), with a real table.
+     */
+    static class InlineGame {
+        final Env env;
+        final Table table;
+        final Player[] players = new Player[2];
+        final Dealer dealer;
+        final DeckModel ui = new DeckModel();
+
+        InlineGame(Properties properties) {
+            properties.putIfAbsent("HumanPlayers", "0");
+            properties.putIfAbsent("ComputerPlayers", "2");
+            properties.putIfAbsent("Seed", "1");
+            MockLogger logger = new MockLogger();
+            Config config = new Config(logger, properties);
+            env = new Env(logger, config, ui, new UtilImpl(config), new VirtualClock());
+            ui.reset(config);
+            table = new Table(env);
+            dealer = new Dealer(env, table, players, env.random(0), true);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealer, table, i, false);
+        }
+
+        /**
+         * Has a player claim a set on the table, and checks the claim.
+         */
+        void collectSet(int player) {
+            int[] set = anySet(table);
+            for (int slot : set) {
+                ui.collected.add(table.slotToCard[slot]);
+                players[player].toggleToken(slot);
+            }
+            dealer.queueClaim(player);
+            dealer.checkClaims();
+        }
+    }
+
+    /**
+     * A user interface that follows the cards through the game: a card placed on the table must come from the deck,
+     * and a card removed from the table goes back to the deck, unless it was collected.
+     */
+    static class DeckModel extends UserInterfaceHeadless {
+        final Set<Integer> deck = new HashSet<>();
+        final Set<Integer> collected = new HashSet<>();
+        private Integer[] slots;
+
+        void reset(Config config) {
+            slots = new Integer[config.tableSize];
+            for (int card = 0; card < config.deckSize; card++)
+                deck.add(card);
+        }
+
+        Set<Integer> onTable() {
+            Set<Integer> cards = new HashSet<>();
+            for (Integer card : slots)
+                if (card != null)
+                    cards.add(card);
+            return cards;
+        }
+
+        @Override
+        public void placeCard(int card, int slot) {
+            assertTrue(deck.remove(card), "card " + card + " is not in the deck");
+            assertNull(slots[slot]);
+            slots[slot] = card;
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            assertNotNull(slots[slot]);
+            if (!collected.contains(slots[slot]))
+                deck.add(slots[slot]);
+            slots[slot] = null;
+        }
+    }
+
     static class MockLogger extends Logger {
         protected MockLogger() {
             super("", null);
@@ -137,9 +349,52 @@ public class DealerTest {
             return false;
         }
 
+        @Override
+        public boolean testSet(int[] cards, int length) {
+            return false;
+        }
+
+        @Override
+        public int completeSet(int[] cards) {
+            return 0;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
-            return null;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<int[]> findSets(int[] deck, int length, int count) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
+        }
+
+        @Override
+        public void forEachSet(List<Integer> deck, Predicate<int[]> action) {}
+
+        @Override
+        public int countSets(List<Integer> deck) {
+            return 0;
+        }
+
+        @Override
+        public int countSets(int[] deck, int length) {
+            return 0;
+        }
+
+        @Override
+        public boolean anySet(List<Integer> deck) {
+            return false;
+        }
+
+        @Override
+        public List<int[]> findSetsWith(int card, int[] cards, int length, int count) {
+            return Collections.emptyList();
         }
 
         @Override
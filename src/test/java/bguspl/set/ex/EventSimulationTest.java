@@ -0,0 +1,70 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventSimulationTest {
+
+    private Config config;
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "3");
+        properties.put("TurnTimeoutSeconds", "10");
+        logger = new MockLogger();
+        config = new Config(logger, properties);
+    }
+
+    @Test
+    void run_SameSeedPlaysSameGame() {
+        EventSimulation first = new EventSimulation(logger, config, new UtilImpl(config), 7);
+        EventSimulation second = new EventSimulation(logger, config, new UtilImpl(config), 7);
+        first.run();
+        second.run();
+
+        assertTrue(first.setsCollected() > 0);
+        assertEquals(first.gameTimeMillis(), second.gameTimeMillis());
+        assertEquals(first.eventsRun(), second.eventsRun());
+        assertArrayEquals(scores(first), scores(second));
+    }
+
+    @Test
+    void run_PerfectBotsOnlyClaimSets() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "3");
+        properties.put("TurnTimeoutSeconds", "10");
+        properties.put("BotStrategies", "perfect");
+        config = new Config(logger, properties);
+        EventSimulation game = new EventSimulation(logger, config, new UtilImpl(config), 7);
+        game.run();
+
+        assertTrue(game.claimCount() > 0);
+        assertEquals(game.claimCount(), game.validClaimCount());
+    }
+
+    private static int[] scores(EventSimulation game) {
+        int[] scores = new int[game.players().length];
+        for (int i = 0; i < scores.length; i++)
+            scores[i] = game.players()[i].score();
+        return scores;
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import bguspl.set.VirtualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameReplayTest {
+
+    private Config config;
+    private Logger logger;
+    private Util util;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        logger = new EventSimulationTest.MockLogger();
+        config = new Config(logger, properties);
+        util = new UtilImpl(config);
+    }
+
+    @Test
+    void run_PlaysRecordedGameAgain(@TempDir Path dir) throws IOException {
+        // record a short game: player 0 claims a legal set, then player 1 claims its tokens on the first 3 slots
+        VirtualClock clock = new VirtualClock();
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), util, clock, 5);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        GameLog log = new GameLog(env.seed, clock);
+        Dealer dealer = new Dealer(env, table, players, log);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        log.recordIf("D", dealer::startRound);
+        int[] set = anySet(table);
+        for (int slot : set)
+            log.record("T 0 " + slot, () -> players[0].toggleToken(slot));
+        for (int slot = 0; slot < 3; slot++) {
+            int s = slot;
+            log.record("T 1 " + slot, () -> players[1].toggleToken(s));
+        }
+        dealer.queueClaim(0);
+        dealer.queueClaim(1);
+        clock.advance(100);
+        log.record("P", dealer::checkClaims);
+        log.record("E", dealer::endRound);
+        Path file = dir.resolve("game.rec");
+        log.write(file, players);
+
+        GameReplay replay = new GameReplay(logger, config, util, file);
+        replay.run();
+
+        assertEquals(1, players[0].score());
+        assertEquals(11, replay.actionCount());
+        assertEquals(replay.recordedScores(), replay.scores());
+    }
+
+    private static int[] anySet(Table table) {
+        for (int slot = 0; ; slot++) {
+            List<int[]> sets = table.setsContaining(slot);
+            if (!sets.isEmpty())
+                return sets.get(0);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.VirtualClock;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,12 +12,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Random;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -79,4 +83,39 @@ class PlayerTest {
         // assert that the freeze until time changed after penalty
         assertNotEquals(freezeUntilBefore, player.getFreezeUntil());
     }
-}
\ No newline at end of file
+
+    @Test
+    void penalty_FreezesUntilClockAdvances() {
+        VirtualClock clock = new VirtualClock(1000);
+        Config config = new Config(logger, (String) null);
+        player = new Player(new Env(logger, config, ui, util, clock), dealer, table, 0, false);
+
+        player.penalty();
+        assertEquals(1000 + config.penaltyFreezeMillis, player.getFreezeUntil());
+
+        // a frozen player ignores key presses (so this returns without waiting for the player thread)
+        clock.advance(config.penaltyFreezeMillis - 1);
+        player.keyPressed(0);
+        verify(table, never()).placeToken(anyInt(), anyInt());
+    }
+
+    @Test
+    void aiAction_SkippedWhileFrozen() {
+        player.penalty();
+
+        // a frozen computer player does not even look at the table
+        player.aiAction(new Random(0));
+        verify(table, never()).snapshot();
+    }
+
+    @Test
+    void nextAiKey_DrawsNothingWhileFrozen() {
+        player.penalty();
+
+        // the event simulation asks for keys this way, so a frozen player must leave the AI and its randomness alone
+        Random random = new Random(0);
+        assertEquals(-1, player.nextAiKey(random));
+        assertEquals(new Random(0).nextInt(), random.nextInt());
+        verify(table, never()).snapshot();
+    }
+}
@@ -0,0 +1,121 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RemainingSetsTest {
+
+    private Config config;
+    private RemainingSets remainingSets;
+    private final Random random = new Random(1);
+
+    private void setUp(int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", String.valueOf(featureCount));
+        MockLogger logger = new MockLogger();
+        config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        remainingSets = new RemainingSets(env);
+    }
+
+    @Test
+    void remove_CountsSetsLeftUntilNoneIsLeft() {
+        setUp(3);
+        collectSetsAndAssert(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void remove_CountsSetsLeftInFullDeck() {
+        setUp(4);
+        assertEquals(1080, remainingSets.count());
+        collectSetsAndAssert(4);
+    }
+
+    @Test
+    void remove_CardLeftTwiceIsIgnored() {
+        setUp(3);
+        remainingSets.remove(5);
+        int count = remainingSets.count();
+        remainingSets.remove(5);
+        assertEquals(count, remainingSets.count());
+    }
+
+    /**
+     * Collects random sets of the cards left, one card at a time, and checks the count after each card against
+     * a brute force count of the cards left.
+     *
+     * @param sets - the number of sets to collect (or fewer, if no set is left before).
+     */
+    private void collectSetsAndAssert(int sets) {
+        List<Integer> cards = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; card++)
+            cards.add(card);
+
+        assertEquals(bruteForceSets(cards).size(), remainingSets.count());
+        for (int i = 0; i < sets; i++) {
+            List<int[]> left = bruteForceSets(cards);
+            assertEquals(!left.isEmpty(), remainingSets.hasSet());
+            if (left.isEmpty())
+                return;
+
+            int[] set = left.get(random.nextInt(left.size()));
+            for (int card : set) {
+                int containing = 0;
+                for (int[] other : bruteForceSets(cards))
+                    for (int c : other)
+                        if (c == card)
+                            containing++;
+                int before = remainingSets.count();
+
+                remainingSets.remove(card);
+                cards.remove(Integer.valueOf(card));
+                assertEquals(before - containing, remainingSets.count(), "after card " + card);
+                assertEquals(!bruteForceSets(cards).isEmpty(), remainingSets.hasSet());
+            }
+        }
+    }
+
+    /**
+     * @return - the legal sets among the cards, by the rules: every feature is all the same or all different.
+     */
+    private List<int[]> bruteForceSets(List<Integer> cards) {
+        List<int[]> sets = new ArrayList<>();
+        for (int i = 0; i < cards.size(); i++)
+            for (int j = i + 1; j < cards.size(); j++)
+                for (int k = j + 1; k < cards.size(); k++) {
+                    int[] set = {cards.get(i), cards.get(j), cards.get(k)};
+                    if (isSet(set))
+                        sets.add(set);
+                }
+        return sets;
+    }
+
+    private boolean isSet(int[] cards) {
+        for (int feature = 0, unit = 1; feature < config.featureCount; feature++, unit *= config.featureSize) {
+            int sum = 0;
+            for (int card : cards)
+                sum += card / unit % config.featureSize;
+            // three values of 0..2 are all the same or all different iff their sum divides by 3
+            if (sum % 3 != 0)
+                return false;
+        }
+        return true;
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the set index of the table (hasSet, setCount, setsContaining) against a search of the cards on the table.
+ */
+class SetIndexTest {
+
+    private Config config;
+    private UtilImpl util;
+    private Logger logger;
+    private Table table;
+    private final Random random = new Random(1);
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("Rows", "3");
+        properties.put("Columns", "4");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        logger = new MockLogger();
+        config = new Config(logger, properties);
+        util = new UtilImpl(config);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), util);
+        table = new Table(env);
+    }
+
+    @Test
+    void placeCards_IndexesAllSets() {
+        // a legal set and another card, then the card that completes a second set with cards 0 and 3
+        table.placeCards(new int[]{0, 1, 2, 3}, new int[]{0, 5, 7, 11});
+        assertIndexMatchesTable();
+        assertTrue(table.hasSet());
+
+        table.placeCard(6, 2);
+        assertIndexMatchesTable();
+    }
+
+    @Test
+    void removeCard_DropsItsSets() {
+        table.placeCards(new int[]{0, 1, 2}, new int[]{0, 1, 2});
+        assertEquals(1, table.setCount());
+
+        table.removeCard(1);
+        assertIndexMatchesTable();
+        assertFalse(table.hasSet());
+        assertTrue(table.setsContaining(0).isEmpty());
+    }
+
+    @Test
+    void placeCard_ReplacesCardInSlot() {
+        table.placeCards(new int[]{0, 1, 2}, new int[]{0, 1, 2});
+        table.placeCard(4, 2);
+        assertIndexMatchesTable();
+        assertFalse(table.hasSet());
+    }
+
+    @Test
+    void clearTable_DropsAllSets() {
+        table.placeCards(new int[]{0, 1, 2, 3, 4, 5}, new int[]{0, 1, 2, 3, 4, 5});
+        assertTrue(table.hasSet());
+
+        table.clearTable();
+        assertIndexMatchesTable();
+        assertFalse(table.hasSet());
+
+        table.placeCards(new int[]{0, 1, 2}, new int[]{3, 4, 5});
+        assertIndexMatchesTable();
+        assertEquals(1, table.setCount());
+    }
+
+    @Test
+    void randomChanges_IndexMatchesTable() {
+        for (int step = 0; step < 500; step++) {
+            int action = random.nextInt(20);
+            if (action == 0) {
+                table.clearTable();
+            } else if (action < 8) {
+                int slot = random.nextInt(config.tableSize);
+                table.removeCard(slot);
+            } else {
+                // place a few cards that are not on the table on random slots (some of them may hold a card)
+                int count = 1 + random.nextInt(3);
+                TreeSet<Integer> slots = new TreeSet<>();
+                TreeSet<Integer> cards = new TreeSet<>();
+                while (slots.size() < count)
+                    slots.add(random.nextInt(config.tableSize));
+                while (cards.size() < count) {
+                    int card = random.nextInt(config.deckSize);
+                    if (table.cardToSlot[card] == null)
+                        cards.add(card);
+                }
+                table.placeCards(cards.stream().mapToInt(Integer::intValue).toArray(),
+                        slots.stream().mapToInt(Integer::intValue).toArray());
+            }
+            assertIndexMatchesTable();
+        }
+    }
+
+    @Test
+    void hints_LogsEverySet() {
+        List<String> messages = new ArrayList<>();
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+            @Override
+            public void flush() {}
+            @Override
+            public void close() {}
+        });
+        table.placeCards(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8}, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8});
+
+        table.hints();
+        assertEquals(table.setCount(), messages.size());
+        for (String message : messages)
+            assertTrue(message.startsWith("Hint: Set found: "), message);
+    }
+
+    /**
+     * Checks hasSet, setCount and setsContaining of every slot against the sets found among the cards on the table.
+     */
+    private void assertIndexMatchesTable() {
+        int[] cards = new int[config.tableSize];
+        int length = 0;
+        for (Integer card : table.slotToCard)
+            if (card != null)
+                cards[length++] = card;
+
+        List<int[]> expected = new ArrayList<>();
+        for (int[] set : util.findSets(cards, length, Integer.MAX_VALUE))
+            expected.add(Arrays.stream(set).map(card -> table.cardToSlot[card]).sorted().toArray());
+
+        assertEquals(expected.size(), table.setCount());
+        assertEquals(!expected.isEmpty(), table.hasSet());
+        for (int slot = 0; slot < config.tableSize; slot++) {
+            TreeSet<String> expectedContaining = new TreeSet<>();
+            for (int[] set : expected)
+                if (contains(set, slot))
+                    expectedContaining.add(Arrays.toString(set));
+            TreeSet<String> containing = new TreeSet<>();
+            for (int[] set : table.setsContaining(slot))
+                containing.add(Arrays.toString(set));
+            assertEquals(expectedContaining, containing, "slot " + slot);
+        }
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int s : slots)
+            if (s == slot)
+                return true;
+        return false;
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -7,11 +7,18 @@ import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
@@ -95,6 +102,53 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void placeToken_CountsAndRemovesTokens() {
+        fillAllSlots();
+
+        table.placeToken(0, 1);
+        table.placeToken(0, 3);
+        table.placeToken(0, 3);
+        assertEquals(2, table.countTokens(0));
+        assertEquals(0, table.countTokens(1));
+        assertArrayEquals(new int[]{1, 3}, table.getPlayerTokensCards(0));
+
+        assertTrue(table.removeToken(0, 1));
+        assertFalse(table.removeToken(0, 1));
+        assertEquals(1, table.countTokens(0));
+    }
+
+    @Test
+    void snapshot_ReflectsCardsAndTokens() {
+        long version = table.version();
+        table.placeCard(8, 2);
+        table.placeToken(0, 2);
+        TableSnapshot snapshot = table.snapshot();
+
+        assertTrue(snapshot.version > version);
+        assertEquals(8, snapshot.card(2));
+        assertEquals(-1, snapshot.card(0));
+        assertArrayEquals(new int[]{2}, snapshot.tokenSlots(0));
+
+        table.removeCard(2);
+        assertEquals(8, snapshot.card(2));
+        assertEquals(-1, table.snapshot().card(2));
+    }
+
+    @Test
+    void placeCards_ThenClearTable() {
+        table.placeCards(new int[]{4, 7}, new int[]{0, 3});
+        table.placeToken(1, 3);
+        assertEquals(2, table.countCards());
+        assertEquals(3, (int) cardToSlot[7]);
+
+        int[] cards = table.clearTable();
+        assertArrayEquals(new int[]{4, 7}, cards);
+        assertEquals(0, table.countCards());
+        assertEquals(0, table.countTokens(1));
+        assertNull(cardToSlot[4]);
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -138,11 +192,54 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public boolean testSet(int[] cards, int length) {
+            return false;
+        }
+
+        @Override
+        public int completeSet(int[] cards) {
+            return 0;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public List<int[]> findSets(int[] deck, int length, int count) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
+        }
+
+        @Override
+        public void forEachSet(List<Integer> deck, Predicate<int[]> action) {}
+
+        @Override
+        public int countSets(List<Integer> deck) {
+            return 0;
+        }
+
+        @Override
+        public int countSets(int[] deck, int length) {
+            return 0;
+        }
+
+        @Override
+        public boolean anySet(List<Integer> deck) {
+            return false;
+        }
+
+        @Override
+        public List<int[]> findSetsWith(int card, int[] cards, int length, int count) {
+            return Collections.emptyList();
+        }
+
         @Override
         public void spin() {}
     }